@@ -0,0 +1,326 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Generates reproducible corpora of CEF messages resembling the output of firewalls, proxies and endpoint agents.
+ * <p>
+ * Every corpus is built from a fixed seed so that runs of different releases parse exactly the same messages. Values
+ * are drawn from small pools, as in real feeds where a handful of vendors, rules and hosts make up most of the
+ * traffic, and a share of the messages is wrapped in a syslog header.
+ */
+public final class CorpusGenerator {
+    /**
+     * Shape of the generated messages
+     */
+    public enum Profile {
+        /**
+         * A realistic mix of text, numbers, addresses and timestamps
+         */
+        MIXED,
+        /**
+         * Messages dominated by timestamp extensions in every CEF date format
+         */
+        DATES,
+        /**
+         * Messages dominated by IPv4, IPv6 and MAC address extensions
+         */
+        ADDRESSES,
+        /**
+         * Messages dominated by vendor specific extensions outside of the specification
+         */
+        CUSTOM
+    }
+
+    private static final long SEED = 0x5EEDCEFL;
+
+    // 2025-01-01T00:00:00Z, the clock of the first message
+    private static final long EPOCH = 1_735_689_600_000L;
+
+    private static final String[][] DEVICES = {
+        {"Palo Alto Networks", "PAN-OS", "10.2.4"},
+        {"Check Point", "VPN-1 & FireWall-1", "R81.20"},
+        {"Fortinet", "FortiGate", "7.4.1"},
+        {"Zscaler", "NSSWeblog", "6.2"},
+        {"CrowdStrike", "FalconHost", "1.0"},
+        {"FireEye", "CMS", "7.2.1.244420"},
+    };
+
+    private static final String[][] SIGNATURES = {
+        {"TRAFFIC", "end", "1"},
+        {"THREAT", "url", "3"},
+        {"100", "Drop", "5"},
+        {"DM", "domain-match", "7"},
+        {"AV|malware", "Detected malware", "10"},
+        {"4625", "An account failed to log on", "Medium"},
+    };
+
+    private static final String[] ACTIONS = {"allowed", "blocked", "dropped", "reset-both", "quarantined"};
+    private static final String[] PROTOCOLS = {"TCP", "UDP", "tcp", "udp"};
+    private static final String[] USERS = {"alice", "bob", "svc_backup", "CORP\\administrator", "jdoe@example.com"};
+    private static final String[] HOSTS = {"ws-0042.corp.example.com", "db01", "mail.example.org", "fw-edge-1", "laptop-7f3a"};
+    private static final String[] URLS = {
+        "https://www.example.com/index.html",
+        "http://updates.example.net/download?id=42&arch=x64",
+        "https://login.example.org/oauth2/authorize?client_id=abc&response_type=code",
+    };
+    private static final String[] MESSAGES = {
+        "Connection closed",
+        "Policy rule=allow-web matched",
+        "Signature 1:2019401 ET POLICY curl User-Agent",
+        "Path C:\\Windows\\Temp\\payload.exe quarantined",
+        "Détection d'un logiciel malveillant",
+    };
+    private static final String[] CUSTOM_KEYS = {
+        "PanOSRuleName", "PanOSSessionID", "PanOSSourceZone", "PanOSDestinationZone", "PanOSThreatCategory",
+        "FTNTFGTpolicyid", "FTNTFGTsubtype", "FTNTFGTvd", "ZscalerDLPEngine", "ZscalerAppClass",
+        "CSFalconTactic", "CSFalconTechnique", "FireEyeAnomaly", "FireEyeSname", "ruleUuid", "riskScore",
+    };
+
+    private final Random random = new Random(SEED);
+    private long clock = EPOCH;
+    private final SimpleDateFormat textual = new SimpleDateFormat("MMM dd yyyy HH:mm:ss", Locale.ENGLISH);
+    private final SimpleDateFormat withMillis = new SimpleDateFormat("MMM dd HH:mm:ss.SSS", Locale.ENGLISH);
+    private final SimpleDateFormat withZone = new SimpleDateFormat("MMM dd yyyy HH:mm:ss zzz", Locale.ENGLISH);
+
+    private CorpusGenerator() {
+        final TimeZone utc = TimeZone.getTimeZone("UTC");
+        textual.setTimeZone(utc);
+        withMillis.setTimeZone(utc);
+        withZone.setTimeZone(TimeZone.getTimeZone("GMT"));
+    }
+
+    /**
+     * @param profile Shape of the messages
+     * @param count Number of messages
+     * @param emptyValues If true, some typed extensions are left empty, which only parses with null values allowed
+     * @return The messages, identical for identical arguments
+     */
+    public static List<String> generate(Profile profile, int count, boolean emptyValues) {
+        final CorpusGenerator generator = new CorpusGenerator();
+        final List<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(generator.message(profile, emptyValues));
+        }
+        return messages;
+    }
+
+    /**
+     * @param messages Messages returned by {@link #generate(Profile, int, boolean)}
+     * @return The UTF-8 encoding of every message
+     */
+    public static byte[][] encode(List<String> messages) {
+        final byte[][] encoded = new byte[messages.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = messages.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private String message(Profile profile, boolean emptyValues) {
+        final StringBuilder message = new StringBuilder(512);
+
+        // Roughly a third of the feeds are relayed through syslog
+        if (random.nextInt(3) == 0) {
+            message.append('<').append(8 * (16 + random.nextInt(8)) + random.nextInt(8)).append('>')
+                    .append(withMillis.format(new Date(timestamp())), 0, 15).append(' ')
+                    .append(pick(HOSTS)).append(' ');
+        }
+
+        final String[] device = pick(DEVICES);
+        final String[] signature = pick(SIGNATURES);
+        message.append("CEF:0|");
+        header(message, device[0]);
+        header(message, device[1]);
+        header(message, device[2]);
+        header(message, signature[0]);
+        header(message, signature[1]);
+        header(message, signature[2]);
+
+        final Extensions extensions = new Extensions(message);
+        switch (profile) {
+            case DATES:
+                extensions.add("rt", date());
+                extensions.add("start", date());
+                extensions.add("end", date());
+                extensions.add("art", date());
+                extensions.add("deviceCustomDate1", date());
+                extensions.add("deviceCustomDate1Label", "First seen");
+                extensions.add("fileCreateTime", date());
+                extensions.add("fileModificationTime", date());
+                extensions.add("act", pick(ACTIONS));
+                break;
+            case ADDRESSES:
+                extensions.add("src", ipv4());
+                extensions.add("dst", ipv4());
+                extensions.add("dvc", ipv4());
+                extensions.add("sourceTranslatedAddress", ipv4());
+                extensions.add("destinationTranslatedAddress", ipv4());
+                extensions.add("smac", mac());
+                extensions.add("dmac", mac());
+                extensions.add("c6a1", ipv6());
+                extensions.add("c6a1Label", "Client IPv6");
+                extensions.add("agt", random.nextBoolean() ? ipv4() : ipv6());
+                extensions.add("spt", Integer.toString(1024 + random.nextInt(64511)));
+                extensions.add("dpt", Integer.toString(random.nextBoolean() ? 443 : random.nextInt(1024)));
+                break;
+            case CUSTOM:
+                extensions.add("rt", Long.toString(timestamp()));
+                extensions.add("src", ipv4());
+                for (String key : CUSTOM_KEYS) {
+                    if (random.nextInt(4) != 0) {
+                        extensions.add(key, customValue());
+                    }
+                }
+                break;
+            default:
+                extensions.add("rt", date());
+                extensions.add("src", ipv4());
+                extensions.add("spt", Integer.toString(1024 + random.nextInt(64511)));
+                extensions.add("dst", ipv4());
+                extensions.add("dpt", Integer.toString(random.nextBoolean() ? 443 : random.nextInt(1024)));
+                extensions.add("proto", pick(PROTOCOLS));
+                extensions.add("act", pick(ACTIONS));
+                extensions.add("suser", pick(USERS));
+                extensions.add("shost", pick(HOSTS));
+                extensions.add("in", Integer.toString(random.nextInt(1 << 20)));
+                extensions.add("out", Integer.toString(random.nextInt(1 << 16)));
+                extensions.add("cnt", Integer.toString(1 + random.nextInt(100)));
+                extensions.add("request", pick(URLS));
+                extensions.add("cs1", "rule-" + random.nextInt(200));
+                extensions.add("cs1Label", "Rule");
+                extensions.add("deviceExternalId", "SN" + (100_000 + random.nextInt(10)));
+                extensions.add("msg", pick(MESSAGES));
+                break;
+        }
+
+        if (emptyValues) {
+            extensions.add("cn1", "");
+            extensions.add("cn1Label", "Bytes dropped");
+            extensions.add("deviceCustomDate2", "");
+        }
+        return message.toString();
+    }
+
+    private String date() {
+        final long timestamp = timestamp();
+        switch (random.nextInt(4)) {
+            case 0:
+                return Long.toString(timestamp);
+            case 1:
+                return textual.format(new Date(timestamp));
+            case 2:
+                return withMillis.format(new Date(timestamp));
+            default:
+                return withZone.format(new Date(timestamp));
+        }
+    }
+
+    // The clock advances a few milliseconds per message and values have a one second resolution, so consecutive
+    // messages repeat the same timestamps as bursty feeds do
+    private long timestamp() {
+        clock += random.nextInt(50);
+        return clock / 1000 * 1000;
+    }
+
+    private String ipv4() {
+        switch (random.nextInt(3)) {
+            case 0:
+                return "10." + random.nextInt(4) + "." + random.nextInt(256) + "." + (1 + random.nextInt(254));
+            case 1:
+                return "192.168." + random.nextInt(16) + "." + (1 + random.nextInt(254));
+            default:
+                return (1 + random.nextInt(223)) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+        }
+    }
+
+    private String ipv6() {
+        return "2001:db8:" + Integer.toHexString(random.nextInt(0x10000)) + "::" + Integer.toHexString(1 + random.nextInt(0xffff));
+    }
+
+    private String mac() {
+        final StringBuilder mac = new StringBuilder(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                mac.append(':');
+            }
+            final int octet = random.nextInt(256);
+            mac.append(Character.forDigit(octet >> 4, 16)).append(Character.forDigit(octet & 0xf, 16));
+        }
+        return mac.toString();
+    }
+
+    private String customValue() {
+        switch (random.nextInt(3)) {
+            case 0:
+                return Integer.toString(random.nextInt(100_000));
+            case 1:
+                return pick(HOSTS);
+            default:
+                return pick(MESSAGES);
+        }
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void header(StringBuilder message, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '|' || c == '\\') {
+                message.append('\\');
+            }
+            message.append(c);
+        }
+        message.append('|');
+    }
+
+    // Appends escaped key=value pairs separated by spaces
+    private static final class Extensions {
+        private final StringBuilder message;
+        private boolean first = true;
+
+        private Extensions(StringBuilder message) {
+            this.message = message;
+        }
+
+        private void add(String key, String value) {
+            if (!first) {
+                message.append(' ');
+            }
+            first = false;
+            message.append(key).append('=');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '=' || c == '\\') {
+                    message.append('\\');
+                }
+                message.append(c);
+            }
+        }
+    }
+}
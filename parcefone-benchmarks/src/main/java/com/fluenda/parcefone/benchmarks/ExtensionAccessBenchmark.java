@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.benchmarks;
+
+import com.fluenda.parcefone.event.CEFHandlingException;
+import com.fluenda.parcefone.event.CommonEvent;
+import com.fluenda.parcefone.parser.CEFParser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads the extensions of events parsed upfront, as done by sinks turning events into documents or rows, with every
+ * combination of the flags of {@link CommonEvent#getExtension(boolean, boolean)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtensionAccessBenchmark {
+    private static final int CORPUS_SIZE = 1024;
+
+    @Param({"MIXED", "CUSTOM"})
+    public CorpusGenerator.Profile profile;
+
+    @Param({"true", "false"})
+    public boolean populatedOnly;
+
+    @Param({"true", "false"})
+    public boolean includeCustomExtensions;
+
+    @Param({"false", "true"})
+    public boolean lazyDecoding;
+
+    private CommonEvent[] events;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final CEFParser parser = new CEFParser().withLazyDecoding(lazyDecoding);
+        final List<String> corpus = CorpusGenerator.generate(profile, CORPUS_SIZE, false);
+        events = new CommonEvent[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            events[i] = parser.parse(corpus.get(i));
+            if (events[i] == null) {
+                throw new IllegalStateException("Generated message cannot be parsed: " + corpus.get(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> getExtension() throws CEFHandlingException {
+        final CommonEvent event = events[next];
+        next = (next + 1) & (CORPUS_SIZE - 1);
+        return event.getExtension(populatedOnly, includeCustomExtensions);
+    }
+}
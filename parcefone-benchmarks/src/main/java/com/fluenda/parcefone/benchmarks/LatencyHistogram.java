@@ -0,0 +1,93 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.benchmarks;
+
+/**
+ * Histogram of latencies in nanoseconds with a relative precision of about 6%.
+ * <p>
+ * Values below 32 have their own bucket, larger values are grouped into 16 buckets per power of two. Recording is a
+ * few instructions and never allocates, so it barely disturbs the calls being measured. Histograms are not thread
+ * safe, each thread records into its own and they are merged once done.
+ */
+final class LatencyHistogram {
+    private static final int LINEAR = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[LINEAR + (63 - 5 + 1) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts[index(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return Upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    long percentile(double percentile) {
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return 0;
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int mantissa = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR + (exponent - 5) * SUB_BUCKETS + mantissa;
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        final int exponent = (index - LINEAR) / SUB_BUCKETS + 5;
+        final int mantissa = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (mantissa + 1) << shift) - 1;
+    }
+}
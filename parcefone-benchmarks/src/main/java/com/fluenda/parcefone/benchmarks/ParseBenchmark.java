@@ -0,0 +1,109 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.benchmarks;
+
+import com.fluenda.parcefone.event.CommonEvent;
+import com.fluenda.parcefone.parser.CEFParser;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses one message of the corpus per invocation, cycling through the corpus so that branch predictors and caches
+ * see the variety of a real feed rather than a single message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+    private static final int CORPUS_SIZE = 4096;
+
+    @Param({"MIXED", "DATES", "ADDRESSES", "CUSTOM"})
+    public CorpusGenerator.Profile profile;
+
+    private CEFParser parser;
+    private String[] strings;
+    private byte[][] bytes;
+    private String[] stringsWithEmptyValues;
+    private int next;
+
+    @Setup
+    public void setup() {
+        parser = new CEFParser();
+
+        final List<String> corpus = CorpusGenerator.generate(profile, CORPUS_SIZE, false);
+        strings = corpus.toArray(new String[0]);
+        bytes = CorpusGenerator.encode(corpus);
+        stringsWithEmptyValues = CorpusGenerator.generate(profile, CORPUS_SIZE, true).toArray(new String[0]);
+
+        // A benchmark of failures would be meaningless, make sure the whole corpus parses
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            if (parser.parse(strings[i], true) == null) {
+                throw new IllegalStateException("Generated message cannot be parsed: " + strings[i]);
+            }
+            if (parser.parse(stringsWithEmptyValues[i], false, true, Locale.ENGLISH) == null) {
+                throw new IllegalStateException("Generated message cannot be parsed: " + stringsWithEmptyValues[i]);
+            }
+        }
+    }
+
+    private int next() {
+        final int index = next;
+        next = (index + 1) & (CORPUS_SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public CommonEvent parseString() {
+        return parser.parse(strings[next()]);
+    }
+
+    @Benchmark
+    public CommonEvent parseBytes() {
+        return parser.parse(bytes[next()]);
+    }
+
+    @Benchmark
+    public CommonEvent parseBytesValidated() {
+        return parser.parse(bytes[next()], true);
+    }
+
+    @Benchmark
+    public CommonEvent parseStringValidated() {
+        return parser.parse(strings[next()], true);
+    }
+
+    @Benchmark
+    public CommonEvent parseStringAllowNulls() {
+        return parser.parse(stringsWithEmptyValues[next()], false, true, Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.benchmarks;
+
+import com.fluenda.parcefone.event.ErrorCode;
+import com.fluenda.parcefone.parser.CEFParser;
+import com.fluenda.parcefone.parser.ParseResult;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a file of newline delimited CEF messages through {@link CEFParser} and reports how the parser copes with it.
+ * <p>
+ * The file is read into memory upfront so that only parsing is measured. After the warm up passes, every thread
+ * parses its share of the messages (every n-th line) once per measured pass, either as fast as it can or paced to a
+ * target rate. The report holds the throughput, the latency percentiles of individual parse calls, the failures by
+ * {@link ErrorCode}, the garbage collections during the measured passes and the bytes allocated per message.
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar com.fluenda.parcefone.benchmarks.Replay [options] file</code>, run without
+ * arguments for the list of options.
+ */
+public final class Replay {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: Replay [options] file",
+            "  --threads N      Number of parsing threads (default 1)",
+            "  --warmup N       Passes over the file before measuring (default 1)",
+            "  --passes N       Measured passes over the file (default 1)",
+            "  --rate N         Target rate in messages per second across all threads, 0 for full speed (default 0)",
+            "  --validate       Validate events against the CEF specification",
+            "  --allow-nulls    Treat empty extension values as null",
+            "  --lazy           Convert extension values on first read",
+            "  --locale TAG     Locale of month names in timestamps, as an IETF language tag (default en)");
+
+    private int threads = 1;
+    private int warmup = 1;
+    private int passes = 1;
+    private long rate;
+    private boolean validate;
+    private boolean allowNulls;
+    private boolean lazy;
+    private Locale locale = Locale.ENGLISH;
+    private Path file;
+
+    private Replay() {
+    }
+
+    /**
+     * @param args Options followed by the file to replay
+     * @throws Exception when the file cannot be read or a parsing thread fails
+     */
+    public static void main(String[] args) throws Exception {
+        final Replay replay = new Replay();
+        try {
+            replay.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        replay.run(System.out);
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = positive(args, ++i);
+                    break;
+                case "--warmup":
+                    warmup = (int) number(args, ++i);
+                    break;
+                case "--passes":
+                    passes = positive(args, ++i);
+                    break;
+                case "--rate":
+                    rate = number(args, ++i);
+                    break;
+                case "--validate":
+                    validate = true;
+                    break;
+                case "--allow-nulls":
+                    allowNulls = true;
+                    break;
+                case "--lazy":
+                    lazy = true;
+                    break;
+                case "--locale":
+                    locale = Locale.forLanguageTag(value(args, ++i));
+                    break;
+                default:
+                    if (args[i].startsWith("--") || file != null) {
+                        throw new IllegalArgumentException("Unexpected argument " + args[i]);
+                    }
+                    file = Paths.get(args[i]);
+            }
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Missing file");
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static long number(String[] args, int i) {
+        final String value = value(args, i);
+        try {
+            final long number = Long.parseLong(value);
+            if (number < 0) {
+                throw new IllegalArgumentException("Negative value of " + args[i - 1]);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value of " + args[i - 1] + ": " + value);
+        }
+    }
+
+    private static int positive(String[] args, int i) {
+        final long number = number(args, i);
+        if (number < 1 || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid value of " + args[i - 1] + ": " + number);
+        }
+        return (int) number;
+    }
+
+    private void run(PrintStream out) throws Exception {
+        final byte[][] messages = readLines(file);
+        if (messages.length == 0) {
+            out.println("No message in " + file);
+            return;
+        }
+        final CEFParser parser = new CEFParser().withLazyDecoding(lazy);
+
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        final com.sun.management.ThreadMXBean allocations = threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threadBean
+                : null;
+
+        // Warm up and measured passes are separated by barriers so that GC counters only cover measured passes
+        final CyclicBarrier warmedUp = new CyclicBarrier(threads + 1);
+        final CyclicBarrier done = new CyclicBarrier(threads + 1);
+        final List<Worker> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final Worker worker = new Worker(parser, messages, t, allocations, warmedUp, done);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long elapsed = 0;
+        long gcCount = 0;
+        long gcTime = 0;
+        try {
+            warmedUp.await();
+            final long gcCountBefore = gcCount();
+            final long gcTimeBefore = gcTime();
+            final long start = System.nanoTime();
+            done.await();
+            elapsed = System.nanoTime() - start;
+            gcCount = gcCount() - gcCountBefore;
+            gcTime = gcTime() - gcTimeBefore;
+        } catch (BrokenBarrierException e) {
+            // A parsing thread failed, its error is rethrown below
+        }
+
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final Map<ErrorCode, Long> failures = new EnumMap<>(ErrorCode.class);
+        long allocated = 0;
+        for (Worker worker : workers) {
+            worker.join();
+            if (worker.error != null) {
+                throw new IllegalStateException("Parsing thread failed", worker.error);
+            }
+            latencies.add(worker.latencies);
+            for (int i = 0; i < worker.failures.length; i++) {
+                if (worker.failures[i] > 0) {
+                    failures.merge(ErrorCode.values()[i], worker.failures[i], Long::sum);
+                }
+            }
+            allocated += worker.allocated;
+        }
+
+        final long handled = latencies.count();
+        long failed = 0;
+        for (long count : failures.values()) {
+            failed += count;
+        }
+        final long events = handled - failed;
+
+        out.printf(Locale.ROOT, "File            %s (%d messages)%n", file, messages.length);
+        out.printf(Locale.ROOT, "Settings        threads=%d warmup=%d passes=%d rate=%s validate=%b allowNulls=%b lazy=%b locale=%s%n",
+                threads, warmup, passes, rate == 0 ? "max" : Long.toString(rate), validate, allowNulls, lazy, locale.toLanguageTag());
+        out.printf(Locale.ROOT, "Throughput      %.0f messages/s, %.0f events/s (%d messages, %d events in %.3f s)%n",
+                handled / (elapsed / 1e9), events / (elapsed / 1e9), handled, events, elapsed / 1e9);
+        out.printf(Locale.ROOT, "Latency (ns)    p50=%d p90=%d p99=%d p99.9=%d p99.99=%d max=%d%n",
+                latencies.percentile(50), latencies.percentile(90), latencies.percentile(99),
+                latencies.percentile(99.9), latencies.percentile(99.99), latencies.max());
+        out.printf(Locale.ROOT, "Failures        %d (%.2f%%)%n", failed, handled == 0 ? 0.0 : 100.0 * failed / handled);
+        for (Map.Entry<ErrorCode, Long> failure : failures.entrySet()) {
+            out.printf(Locale.ROOT, "  %-22s %d%n", failure.getKey(), failure.getValue());
+        }
+        out.printf(Locale.ROOT, "GC              %d collections, %d ms%n", gcCount, gcTime);
+        if (allocations != null) {
+            out.printf(Locale.ROOT, "Allocation      %d bytes per message, %.1f MB/s%n",
+                    handled == 0 ? 0 : allocated / handled, allocated / 1e6 / (elapsed / 1e9));
+        } else {
+            out.println("Allocation      not supported by this JVM");
+        }
+    }
+
+    private final class Worker extends Thread {
+        private final CEFParser parser;
+        private final byte[][] messages;
+        private final int index;
+        private final com.sun.management.ThreadMXBean allocations;
+        private final CyclicBarrier warmedUp;
+        private final CyclicBarrier done;
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final long[] failures = new long[ErrorCode.values().length];
+        private long allocated;
+        private Throwable error;
+
+        private Worker(CEFParser parser, byte[][] messages, int index, com.sun.management.ThreadMXBean allocations,
+                       CyclicBarrier warmedUp, CyclicBarrier done) {
+            super("replay-" + index);
+            this.parser = parser;
+            this.messages = messages;
+            this.index = index;
+            this.allocations = allocations;
+            this.warmedUp = warmedUp;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int pass = 0; pass < warmup; pass++) {
+                    for (int i = index; i < messages.length; i += threads) {
+                        parser.tryParse(messages[i], 0, messages[i].length, validate, allowNulls, locale);
+                    }
+                }
+                warmedUp.await();
+
+                final long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(getId()) : 0;
+                // Each thread paces its own share of the target rate
+                final long interval = rate == 0 ? 0 : threads * 1_000_000_000L / rate;
+                long next = System.nanoTime();
+                for (int pass = 0; pass < passes; pass++) {
+                    for (int i = index; i < messages.length; i += threads) {
+                        if (interval > 0) {
+                            next += interval;
+                            for (long wait = next - System.nanoTime(); wait > 0; wait = next - System.nanoTime()) {
+                                LockSupport.parkNanos(wait);
+                            }
+                        }
+
+                        final long start = System.nanoTime();
+                        final ParseResult result = parser.tryParse(messages[i], 0, messages[i].length, validate, allowNulls, locale);
+                        latencies.record(System.nanoTime() - start);
+                        if (!result.isSuccess()) {
+                            failures[result.errorCode().ordinal()]++;
+                        }
+                    }
+                }
+                if (allocations != null) {
+                    allocated = allocations.getThreadAllocatedBytes(getId()) - allocatedBefore;
+                }
+                done.await();
+            } catch (BrokenBarrierException e) {
+                // Another thread failed, its error is reported instead
+            } catch (Throwable e) {
+                error = e;
+                // Break both barriers for good rather than resetting them, a reset would leave the threads that did not
+                // reach a barrier yet waiting for parties that never arrive
+                breakBarrier(warmedUp);
+                breakBarrier(done);
+            }
+        }
+
+        private void breakBarrier(CyclicBarrier barrier) {
+            try {
+                // Times out at once unless this thread is the last party, the barrier then stays broken until reset
+                barrier.await(0, TimeUnit.NANOSECONDS);
+            } catch (BrokenBarrierException | TimeoutException e) {
+                // Broken as intended
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static byte[][] readLines(Path file) throws IOException {
+        final byte[] content = Files.readAllBytes(file);
+        final List<byte[]> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= content.length; i++) {
+            if (i < content.length && content[i] != '\n') {
+                continue;
+            }
+            int end = i;
+            if (end > start && content[end - 1] == '\r') {
+                end--;
+            }
+            if (end > start) {
+                lines.add(Arrays.copyOfRange(content, start, end));
+            }
+            start = i + 1;
+        }
+        return lines.toArray(new byte[0][]);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return time;
+    }
+}
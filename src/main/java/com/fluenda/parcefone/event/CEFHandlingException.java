@@ -20,11 +20,22 @@ package com.fluenda.parcefone.event;
  * Common Event Format Handling Exception thrown on parsing failures
  */
 public class CEFHandlingException extends Exception {
+    /**
+     * Reason of the failure
+     */
+    private final ErrorCode errorCode;
+
+    /**
+     * Key of the extension holding the malformed value, null when the failure is not tied to a single extension
+     */
+    private final String field;
+
     /**
      * Default constructor with no arguments
      */
     public CEFHandlingException() {
-
+        this.errorCode = ErrorCode.BAD_VALUE;
+        this.field = null;
     }
 
     /**
@@ -34,6 +45,8 @@ public class CEFHandlingException extends Exception {
      */
     public CEFHandlingException(String message) {
         super(message);
+        this.errorCode = ErrorCode.BAD_VALUE;
+        this.field = null;
     }
 
     /**
@@ -44,5 +57,35 @@ public class CEFHandlingException extends Exception {
      */
     public CEFHandlingException(String message, Throwable cause) {
         super(message,cause);
+        this.errorCode = ErrorCode.BAD_VALUE;
+        this.field = null;
+    }
+
+    /**
+     * Constructor of the exceptions reporting malformed values. These exceptions are raised for every malformed
+     * message of noisy sources and do not record a stack trace, which would cost far more than the parsing itself.
+     *
+     * @param message Message describing failure
+     * @param errorCode Reason of the failure
+     * @param field Key of the extension holding the malformed value
+     */
+    public CEFHandlingException(String message, ErrorCode errorCode, String field) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+        this.field = field;
+    }
+
+    /**
+     * @return Reason of the failure, {@link ErrorCode#BAD_VALUE} unless given at construction
+     */
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return Key of the extension holding the malformed value, or null
+     */
+    public String getField() {
+        return field;
     }
 }
@@ -16,26 +16,20 @@
  */
 package com.fluenda.parcefone.event;
 
+import com.fluenda.parcefone.event.CefRev23Schema.Extension;
+import com.fluenda.parcefone.event.CefRev23Schema.FieldType;
+import com.fluenda.parcefone.event.CefRev23Schema.Packed;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
-import java.lang.reflect.Field;
-import java.net.Inet4Address;
-import java.net.Inet6Address;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
 
 /**
  * Implements the Common Event Format (CEF) as documented by
@@ -43,20 +37,19 @@ import java.util.regex.Matcher;
  *     revision 23
  * </a>
  * (Retrieved on August 2016).
+ * <p>
+ * Extensions are stored compactly: numbers in primitive fields, dates as milliseconds since epoch and MAC and IPv4
+ * addresses packed into primitive fields, while a bitset records which extensions are populated. The
+ * {@link Integer}, {@link Date}, {@link InetAddress} or {@link MacAddress} objects handed out by
+ * {@link #getExtension(String)} and {@link #getExtension(boolean, boolean)} are only created when they are read.
  *
  */
 public class CefRev23 extends CommonEvent {
 
-    // Note the conflict with javax.validation.constraints.Pattern...
-    final private java.util.regex.Pattern timeRegex =  java.util.regex.Pattern.compile(
-                    "(?<MONTH>\\S+(\\.)?)\\s(?<DAY>\\d{2})\\s(?:(?<YEAR>\\d{4})(?:\\s))?" +
-                    "(?<HOUR>[012][0-9]):(?<MINUTE>[0-5][0-9]):(?<SECOND>[0-5][0-9])" +
-                    "(?:\\.(?<MILLI>\\d{3}))?(?:\\s(?<TZ>\\w+))?");
-
-    final private Class<?> objClass = this.getClass();
-    final private Field[] fields = objClass.getDeclaredFields();
-    private ArrayList<String> populatedExtensions = new ArrayList<String>();
-    private Map<String, Object> customExtensions = new HashMap<>();
+    // Allocated on first use, most events only need one of them
+    // Extension bits by ordinal: populated in the first half, populated with a null value in the second half
+    private long[] extensionBits;
+    private Map<String, Object> customExtensions;
 
     // Implements a " struct like"  class that implements the Common Event
     // Format v23 as described here:
@@ -74,454 +67,660 @@ public class CefRev23 extends CommonEvent {
 
     // The extension field and its list of KVs
 
+    @Extension
     @Size(max = 63)
     private String act;
 
+    @Extension
     @Size(max = 31)
     private String app;
 
+    @Extension
     private InetAddress c6a1;
 
+    @Extension
     @Size(max = 1023)
     private String c6a1Label;
 
+    @Extension
     private InetAddress c6a2;
 
+    @Extension
     @Size(max = 1023)
     private String c6a2Label;
 
+    @Extension
     private InetAddress c6a3;
 
+    @Extension
     @Size(max = 1023)
     private String c6a3Label;
 
+    @Extension
     private InetAddress c6a4;
 
+    @Extension
     @Size(max = 1023)
     private String c6a4Label;
 
-    private Float cfp1;
+    @Extension
+    private float cfp1;
 
+    @Extension
     @Size(max = 1023)
     private String cfp1Label;
 
-    private Float cfp2;
+    @Extension
+    private float cfp2;
 
+    @Extension
     @Size(max = 1023)
     private String cfp2Label;
 
-    private Float cfp3;
+    @Extension
+    private float cfp3;
 
+    @Extension
     @Size(max = 1023)
     private String cfp3Label;
 
-    private Float cfp4;
+    @Extension
+    private float cfp4;
 
+    @Extension
     @Size(max = 1023)
     private String cfp4Label;
 
-    private Long cn1;
+    @Extension
+    private long cn1;
 
+    @Extension
     @Size(max = 1023)
     private String cn1Label;
 
-    private Long cn2;
+    @Extension
+    private long cn2;
 
+    @Extension
     @Size(max = 1023)
     private String cn2Label;
 
-    private Long cn3;
+    @Extension
+    private long cn3;
 
+    @Extension
     @Size(max = 1023)
     private String cn3Label;
 
-    private Long cnt;
+    @Extension
+    private long cnt;
 
+    @Extension
     @Size(max = 4000)
     private String cs1;
 
+    @Extension
     @Size(max = 1023)
     private String cs1Label;
 
+    @Extension
     @Size(max = 4000)
     private String cs2;
 
+    @Extension
     @Size(max = 1023)
     private String cs2Label;
 
+    @Extension
     @Size(max = 4000)
     private String cs3;
 
+    @Extension
     @Size(max = 1023)
     private String cs3Label;
 
+    @Extension
     @Size(max = 4000)
     private String cs4;
 
+    @Extension
     @Size(max = 1023)
     private String cs4Label;
 
+    @Extension
     @Size(max = 4000)
     private String cs5;
 
+    @Extension
     @Size(max = 1023)
     private String cs5Label;
 
+    @Extension
     @Size(max = 4000)
     private String cs6;
 
+    @Extension
     @Size(max = 1023)
     private String cs6Label;
 
+    @Extension
     @Size(max = 255)
     private String destinationDnsDomain;
 
+    @Extension
     @Size(max = 1023)
     private String destinationServiceName;
 
-    private Inet4Address destinationTranslatedAddress;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int destinationTranslatedAddress;
 
-    private Integer destinationTranslatedPort;
+    @Extension
+    private int destinationTranslatedPort;
 
-    private Date deviceCustomDate1;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long deviceCustomDate1;
 
+    @Extension
     @Size(max = 1023)
     private String deviceCustomDate1Label;
 
-    private Date deviceCustomDate2;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long deviceCustomDate2;
 
+    @Extension
     @Size(max = 1023)
     private String deviceCustomDate2Label;
 
     // OMG! Device direction is binary!!!
     // 0 = inbound 1 is outbound
+    @Extension
     @Min(0)
     @Max(1)
-    private Integer deviceDirection;
+    private int deviceDirection;
 
+    @Extension
     @Size(max = 255)
     private String deviceDnsDomain;
 
+    @Extension
     @Size(max = 255)
     private String deviceExternalId;
 
+    @Extension
     @Size(max = 1023)
     private String deviceFacility;
 
+    @Extension
     @Size(max = 128)
     private String deviceInboundInterface;
 
+    @Extension
     @Size(max = 255)
     private String deviceNtDomain;
 
+    @Extension
     @Size(max = 128)
     private String deviceOutboundInterface;
 
+    @Extension
     @Size(max = 128)
     private String devicePayloadId;
 
+    @Extension
     @Size(max = 1023)
     private String deviceProcessName;
 
-    private Inet4Address deviceTranslatedAddress;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int deviceTranslatedAddress;
 
+    @Extension
     @Size(max = 1023)
     private String dhost;
 
-    private MacAddress dmac;
+    @Extension
+    @Packed(FieldType.MAC_ADDRESS)
+    private long dmac;
 
+    @Extension
     @Size(max = 255)
     private String dntdom;
 
-    private Integer dpid;
+    @Extension
+    private int dpid;
 
+    @Extension
     @Size(max = 1023)
     private String dpriv;
 
+    @Extension
     @Size(max = 1023)
     private String dproc;
 
+    @Extension
     @Max(65535)
-    private Integer dpt;
+    private int dpt;
 
-    private Inet4Address dst;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int dst;
 
+    @Extension
     @Size(max = 255)
     private String dtz;
 
+    @Extension
     @Size(max = 1023)
     private String duid;
 
+    @Extension
     @Size(max = 1023)
     private String duser;
 
-    private Inet4Address dvc;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int dvc;
 
+    @Extension
     @Size(max = 100)
     private String dvchost;
 
-    private MacAddress dvcmac;
+    @Extension
+    @Packed(FieldType.MAC_ADDRESS)
+    private long dvcmac;
 
-    private Integer dvcpid;
+    @Extension
+    private int dvcpid;
 
-    private Date end;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long end;
 
+    @Extension
     @Size(max = 40)
     private String externalId;
 
-    private Date fileCreateTime;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long fileCreateTime;
 
+    @Extension
     @Size(max = 255)
     private String fileHash;
 
+    @Extension
     @Size(max = 1023)
     private String field;
 
-    private Date fileModificationTime;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long fileModificationTime;
 
+    @Extension
     @Size(max = 1023)
     private String filePath;
 
+    @Extension
     @Size(max = 1023)
     private String filePermission;
 
+    @Extension
     @Size(max = 1023)
     private String fileType;
 
-    private Date flexDate1;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long flexDate1;
 
+    @Extension
     @Size(max = 128)
     private String flexDate1Label;
 
-    private Long flexNumber1;
+    @Extension
+    private long flexNumber1;
 
+    @Extension
     @Size(max = 128)
     private String flexNumber1Label;
 
-    private Long flexNumber2;
+    @Extension
+    private long flexNumber2;
 
+    @Extension
     @Size(max = 128)
     private String flexNumber2Label;
 
+    @Extension
     @Size(max = 1023)
     private String flexString1;
 
+    @Extension
     @Size(max = 128)
     private String flexString1Label;
 
+    @Extension
     @Size(max = 1023)
     private String flexString2;
 
+    @Extension
     @Size(max = 128)
     private String flexString2Label;
 
+    @Extension
     @Size(max = 1023)
     private String fname;
 
-    private Integer fsize;
+    @Extension
+    private int fsize;
 
-    private Integer in;
+    @Extension
+    private int in;
 
+    @Extension
     @Size(max = 1023)
     private String msg;
 
-    private Date oldFileCreateTime;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long oldFileCreateTime;
 
+    @Extension
     @Size(max = 255)
     private String oldFileHash;
 
+    @Extension
     @Size(max = 1023)
     private String oldField;
 
-    private Date oldFileModificationTime;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long oldFileModificationTime;
 
+    @Extension
     @Size(max = 1023)
     private String oldFileName;
 
+    @Extension
     @Size(max = 1023)
     private String oldFilePath;
 
+    @Extension
     @Size(max = 1023)
     private String oldFilePermission;
 
-    private Integer oldFileSize;
+    @Extension
+    private int oldFileSize;
 
+    @Extension
     @Size(max = 1023)
     private String oldFileType;
 
-    private Integer out;
+    @Extension
+    private int out;
 
+    @Extension
     @Size(max = 63)
     private String outcome;
 
+    @Extension
     @Pattern(regexp = "tcp|udp", flags = Pattern.Flag.CASE_INSENSITIVE)
     @Size(max = 31)
     private String proto;
 
+    @Extension
     @Size(max = 1023)
     private String reason;
 
+    @Extension
     @Size(max = 1023)
     private String request;
 
+    @Extension
     @Size(max = 1023)
     private String requestClientApplication;
 
+    @Extension
     @Size(max = 2048)
     private String requestContext;
 
+    @Extension
     @Size(max = 1023)
     private String requestCookies;
 
+    @Extension
     @Size(max = 1023)
     private String requestMethod;
 
-    private Date rt;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long rt;
 
+    @Extension
     @Size(max = 1023)
     private String shost;
 
-    private MacAddress smac;
+    @Extension
+    @Packed(FieldType.MAC_ADDRESS)
+    private long smac;
 
+    @Extension
     @Size(max = 255)
     private String sntdom;
 
+    @Extension
     @Size(max = 255)
     private String sourceDnsDomain;
 
+    @Extension
     @Size(max = 1023)
     private String sourceServiceName;
 
-    private Inet4Address sourceTranslatedAddress;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int sourceTranslatedAddress;
 
-    private Integer sourceTranslatedPort;
+    @Extension
+    private int sourceTranslatedPort;
 
-    private Integer spid;
+    @Extension
+    private int spid;
 
+    @Extension
     @Size(max = 1023)
     private String spriv;
 
+    @Extension
     @Size(max = 1023)
     private String sproc;
 
+    @Extension
     @Max(65535)
-    private Integer spt;
+    private int spt;
 
-    private Inet4Address src;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int src;
 
-    private Date start;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long start;
 
+    @Extension
     @Size(max = 1023)
     private String suid;
 
+    @Extension
     @Size(max = 1023)
     private String suser;
 
+    @Extension
     @Min(0)
     @Max(3)
-    private Integer type;
+    private int type;
 
+    @Extension
     @Size(max = 255)
     private String agentDnsDomain;
 
+    @Extension
     @Size(max = 255)
     private String agentNtDomain;
 
-    private Inet4Address agentTranslatedAddress;
+    @Extension
+    @Packed(FieldType.INET4_ADDRESS)
+    private int agentTranslatedAddress;
 
+    @Extension
     @Size(max = 200)
     private String agentTranslatedZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String agentTranslatedZoneURI;
 
+    @Extension
     @Size(max = 200)
     private String agentZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String agentZoneURI;
 
+    @Extension
     private InetAddress agt;
 
+    @Extension
     @Size(max = 1023)
     private String ahost;
 
+    @Extension
     @Size(max = 40)
     private String aid;
 
-    private MacAddress amac;
+    @Extension
+    @Packed(FieldType.MAC_ADDRESS)
+    private long amac;
 
-    private Date art;
+    @Extension
+    @Packed(FieldType.DATE)
+    private long art;
 
+    @Extension
     @Size(max = 63)
     private String at;
 
+    @Extension
     @Size(max = 255)
     private String atz;
 
+    @Extension
     @Size(max = 31)
     private String av;
 
+    @Extension
     @Size(max = 1023)
     private String cat;
 
+    @Extension
     @Size(max = 200)
     private String customerExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String customerURI;
 
+    @Extension
     @Size(max = 200)
     private String destinationTranslatedZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String destinationTranslatedZoneURI;
 
+    @Extension
     @Size(max = 200)
     private String destinationZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String destinationZoneURI;
 
+    @Extension
     @Size(max = 200)
     private String deviceTranslatedZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String deviceTranslatedZoneURI;
 
+    @Extension
     @Size(max = 200)
     private String deviceZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String deviceZoneURI;
 
-    private Double dlat;
+    @Extension
+    private double dlat;
 
-    private Double dlong;
+    @Extension
+    private double dlong;
 
-    private Long eventId;
+    @Extension
+    private long eventId;
 
+    @Extension
     @Size(max = 4000)
     private String rawEvent;
 
-    private Double slat;
+    @Extension
+    private double slat;
 
-    private Double slong;
+    @Extension
+    private double slong;
 
+    @Extension
     @Size(max = 200)
     private String sourceTranslatedZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String sourceTranslatedZoneURI;
 
+    @Extension
     @Size(max = 200)
     private String sourceZoneExternalID;
 
+    @Extension
     @Size(max = 2048)
     private String sourceZoneURI;
 
     private Locale dateLocale;
 
+    private TimestampParser timestamps;
+
+    private TimestampCache timestampCache;
+
+    private SyslogHeader syslogHeader;
+
+    /**
+     * Resolve an extension key, so that callers deciding what to do with an extension do not look its key up again
+     * when setting it (see {@link #setExtension(int, CharSequence, CharSequence, boolean)})
+     *
+     * @param text The text holding an extension key
+     * @param start Offset of the first character of the key
+     * @param end Offset following the last character of the key
+     * @return The ordinal of the CEF Rev23 extension, or -1 for custom extensions
+     */
+    public static int extensionOrdinal(CharSequence text, int start, int end) {
+        final CefRev23Schema.Accessor accessor = CefRev23Schema.get().extension(text, start, end);
+        return accessor == null ? -1 : accessor.ordinal;
+    }
+
     /**
      * Standard constructor with locale for date objects
      *
@@ -532,6 +731,18 @@ public class CefRev23 extends CommonEvent {
         this.dateLocale = locale;
     }
 
+    /**
+     * Constructor with locale for date objects and a cache of recently parsed timestamps
+     *
+     * @param locale Locale for date objects
+     * @param timestampCache Cache shared with other events to avoid parsing repeated timestamps, or null to disable caching
+     */
+    public CefRev23(Locale locale, TimestampCache timestampCache) {
+        super();
+        this.dateLocale = locale;
+        this.timestampCache = timestampCache;
+    }
+
     /**
      * Default constructor with date locale set to English
      */
@@ -542,17 +753,124 @@ public class CefRev23 extends CommonEvent {
         this.dateLocale = Locale.ENGLISH;
     }
 
+    /**
+     * Set all headers at once without going through a {@link Map}
+     *
+     * @param version CEF format version
+     * @param deviceVendor Device vendor
+     * @param deviceProduct Device product
+     * @param deviceVersion Device version
+     * @param deviceEventClassId Device event class ID
+     * @param name Event name
+     * @param severity Event severity
+     */
+    public void setHeader(int version, String deviceVendor, String deviceProduct, String deviceVersion,
+                          String deviceEventClassId, String name, String severity) {
+        this.version = version;
+        this.deviceVendor = deviceVendor;
+        this.deviceProduct = deviceProduct;
+        this.deviceVersion = deviceVersion;
+        this.deviceEventClassId = deviceEventClassId;
+        this.name = name;
+        this.severity = severity;
+    }
+
+    /**
+     * Set the syslog header the CEF message was received with, its fields are only decoded when read
+     *
+     * @param syslogHeader The text preceding the CEF signature, e.g. <code>&lt;134&gt;Oct 17 10:00:00 host</code>, or
+     *                     null if the message was not wrapped in syslog
+     */
+    public void setSyslogHeader(String syslogHeader) {
+        this.syslogHeader = syslogHeader == null ? null : new SyslogHeader(syslogHeader, 0, syslogHeader.length());
+    }
+
+    /**
+     * Set the syslog header the CEF message was received with as a range of the message. The message is kept by the
+     * event rather than copied, the header is only extracted when read.
+     *
+     * @param message The message holding the syslog header
+     * @param start Offset of the first character of the syslog header
+     * @param end Offset following the syslog header, without the space separating it from the CEF signature
+     */
+    public void setSyslogHeader(String message, int start, int end) {
+        this.syslogHeader = new SyslogHeader(message, start, end);
+    }
+
+    /**
+     * Set the syslog header the CEF message was received with as raw bytes, which are only decoded when read. The
+     * array is kept by the event rather than copied and must not be modified afterwards.
+     *
+     * @param utf8 The UTF-8 bytes of the syslog header, without the space separating it from the CEF signature
+     */
+    public void setSyslogHeader(byte[] utf8) {
+        this.syslogHeader = new SyslogHeader(utf8);
+    }
+
+    /**
+     * @return The raw syslog header the CEF message was received with, or null
+     */
+    public String getSyslogHeader() {
+        return syslogHeader == null ? null : syslogHeader.text();
+    }
+
+    /**
+     * @return The syslog PRI value (facility * 8 + severity), or null if there is no syslog header or it has no PRI
+     */
+    public Integer getSyslogPriority() {
+        final int priority = syslogHeader == null ? -1 : syslogHeader.priority();
+        return priority < 0 ? null : priority;
+    }
+
+    /**
+     * @return The RFC 3164 or RFC 5424 timestamp of the syslog header, or null if there is none
+     * @throws CEFHandlingException when the timestamp cannot be parsed
+     */
+    public Date getSyslogTimestamp() throws CEFHandlingException {
+        return syslogHeader == null ? null : syslogHeader.timestamp();
+    }
+
+    /**
+     * @return The host name of the syslog header, or null if there is none
+     */
+    public String getSyslogHostname() {
+        return syslogHeader == null ? null : syslogHeader.hostname();
+    }
+
+    /**
+     * Clear the headers, the syslog header, the extensions populated since the event was created or last reset and the
+     * custom extensions, so that the event can be populated again without allocating a new one. The date locale and
+     * timestamp cache are kept.
+     */
+    public void reset() {
+        setHeader(0, null, null, null, null, null, null);
+        syslogHeader = null;
+
+        if (extensionBits != null) {
+            final CefRev23Schema.Accessor[] accessors = CefRev23Schema.get().extensions();
+            for (int ordinal = nextPopulated(0); ordinal >= 0; ordinal = nextPopulated(ordinal + 1)) {
+                clear(accessors[ordinal]);
+            }
+            Arrays.fill(extensionBits, 0L);
+        }
+        if (customExtensions != null) {
+            customExtensions.clear();
+        }
+    }
+
     /**
     * @param headers A map containing the  keys and values of headers of CEF event
     * @throws CEFHandlingException when it has issues writing the values of the headers
     */
     public void setHeader(Map<String, Object> headers)  throws CEFHandlingException {
-        for (String key : headers.keySet()) {
+        for (Map.Entry<String, Object> header : headers.entrySet()) {
+            final CefRev23Schema.Accessor accessor = CefRev23Schema.get().header(header.getKey());
+            if (accessor == null) {
+                throw new CEFHandlingException("Error writing values to headers: unknown header " + header.getKey());
+            }
             try {
-                Field field = objClass.getDeclaredField(key);
-                Object value = headers.get(key);
-                field.set(this, value);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
+                accessor.handle.set(this, header.getValue());
+            } catch (ClassCastException | NullPointerException e) {
                 throw new CEFHandlingException("Error writing values to headers", e);
             }
         }
@@ -564,16 +882,8 @@ public class CefRev23 extends CommonEvent {
      */
     public Map<String, Object> getHeader() throws CEFHandlingException {
         final HashMap<String, Object> headers = new HashMap<String, Object>();
-        List headersKeys = Arrays.asList(new String[] {"version", "deviceVendor", "deviceProduct", "deviceVersion", "deviceEventClassId", "name", "severity"});
-
-        for (Field f: fields) {
-            if (headersKeys.contains(f.getName())) {
-                try {
-                    headers.put(f.getName(), f.get(this));
-                } catch (IllegalAccessException e) {
-                    throw new CEFHandlingException("Error harvesting headers, e");
-                }
-            }
+        for (CefRev23Schema.Accessor accessor : CefRev23Schema.get().headers()) {
+            headers.put(accessor.name, accessor.handle.get(this));
         }
         return headers;
     }
@@ -592,118 +902,348 @@ public class CefRev23 extends CommonEvent {
      * @throws CEFHandlingException when it has issues populating the extensions
      */
     public void setExtension(Map<String, String> extensions, final boolean allowNulls) throws CEFHandlingException {
-        for (String key : extensions.keySet()) {
-            try {
-                Field field = objClass.getDeclaredField(key);
-                String value = extensions.get(key);
-
-                // Treat each Classes in a particular fashion
-
-                // Inet, Inet4 and Inet6 address
-                if (field.getType().equals(InetAddress.class) || field.getType().equals(Inet4Address.class) || field.getType().equals(Inet6Address.class)) {
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        try {
-                            InetAddress inetAddress = InetAddress.getByName((String) value);
-                            field.set(this, inetAddress);
-                        } catch (UnknownHostException e) {
-                            throw new CEFHandlingException("Error setting value to field " + key, e);
-                        }
-                    }
-
-                // Date (timestamps) - Note we force a particular date format (set as private dateFormat above
-                } else if (field.getType().equals(Date.class)) {
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        try {
-                            // Use a ": "to match epoch vs. Dateformat
-                            if (!value.toString().contains(":")) {
-                                // This is epoch
-                                field.set(this, new Date(Long.valueOf(value)));
-                            } else {
-                                // This is one of the remaining 8 possible values, regex it out...
-                                Matcher matcher = timeRegex.matcher(value);
-
-                                if (matcher.matches()) {
-                                    String year = matcher.group("YEAR") == null ? String.valueOf(Calendar.getInstance().get(Calendar.YEAR)) : matcher.group("YEAR") ;
-                                    String milli = matcher.group("MILLI") == null ? "000" : matcher.group("MILLI");
-
-                                    String regexDate =
-                                            year + "-" +
-                                            matcher.group("MONTH") + "-" +
-                                            matcher.group("DAY") + " " +
-                                            matcher.group("HOUR") + ":" +
-                                            matcher.group("MINUTE") + ":" +
-                                            matcher.group("SECOND") + "." +
-                                            milli;
-                                    if (matcher.group("TZ") == null ) {
-                                        field.set(this, dateFormat(false).parse(regexDate));
-                                    } else {
-                                        regexDate = regexDate + " " + matcher.group("TZ");
-                                        field.set(this, dateFormat(true).parse(regexDate));
-                                    }
-                                }
-                            }
-                        } catch (ParseException|NumberFormatException e) {
-                            throw new CEFHandlingException("Error setting value to field " + key, e);
-                        }
-                    }
-
-                // Mac Addresses
-                } else if (field.getType().equals(MacAddress.class)) {
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        field.set(this, new MacAddress(value));
-                    }
-
-                // Integers
-                } else if (field.getType().equals(Integer.class)) {
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        field.set(this, Integer.valueOf(value));
-                    }
-
-                // Longs
-                } else if (field.getType().equals(Long.class)){
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        field.set(this, Long.valueOf(value));
-                    }
-
-                // Doubles
-                } else if (field.getType().equals(Double.class)) {
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        field.set(this, Double.valueOf(value));
-                    }
-
-                // Floats
-                } else if (field.getType().equals(Float.class)) {
-                    if(allowNulls && (value == null || value.isEmpty())) {
-                        field.set(this, null);
-                    } else {
-                        field.set(this, Float.valueOf(value));
-                    }
-
-                // The rest (to be removed)
-                } else {
-                    field.set(this, value);
+        for (Map.Entry<String, String> extension : extensions.entrySet()) {
+            setExtension(extension.getKey(), extension.getValue(), allowNulls);
+        }
+    }
+
+    /**
+     * Set a single extension.
+     * <p>
+     * The value is only read for the duration of the call, allowing callers to pass a reusable view over a larger
+     * buffer. Only values stored as text are copied into new Strings.
+     *
+     * @param key The extension key
+     * @param value The extension value
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @throws CEFHandlingException when it has issues populating the extension
+     */
+    public void setExtension(CharSequence key, CharSequence value, final boolean allowNulls) throws CEFHandlingException {
+        setExtension(CefRev23Schema.get().extension(key), key, value, allowNulls);
+    }
+
+    /**
+     * Set a single extension whose key has already been resolved by {@link #extensionOrdinal(CharSequence, int, int)}.
+     * <p>
+     * The key and value are only read for the duration of the call, as they are by
+     * {@link #setExtension(CharSequence, CharSequence, boolean)}.
+     *
+     * @param ordinal The extension ordinal, or -1 for a custom extension
+     * @param key The extension key, only read for custom extensions
+     * @param value The extension value
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @throws CEFHandlingException when it has issues populating the extension
+     */
+    public void setExtension(int ordinal, CharSequence key, CharSequence value, final boolean allowNulls) throws CEFHandlingException {
+        setExtension(ordinal < 0 ? null : CefRev23Schema.get().extensions()[ordinal], key, value, allowNulls);
+    }
+
+    private void setExtension(CefRev23Schema.Accessor accessor, CharSequence key, CharSequence value, final boolean allowNulls) throws CEFHandlingException {
+        // Keys outside of the specification are kept as text
+        if (accessor == null) {
+            if (customExtensions == null) {
+                customExtensions = new HashMap<>();
+            }
+            customExtensions.put(key.toString(), value == null ? null : value.toString());
+            return;
+        }
+
+        // Text is kept as is, even when empty
+        if (accessor.type == FieldType.STRING) {
+            accessor.handle.set(this, value == null ? null : value.toString());
+            setPopulated(accessor.ordinal, value == null);
+            return;
+        }
+
+        if (value == null || value.length() == 0) {
+            if (allowNulls) {
+                clear(accessor);
+                setPopulated(accessor.ordinal, true);
+                return;
+            }
+            throw invalid(accessor, ErrorCode.EMPTY_VALUE, "value is empty");
+        }
+
+        switch (accessor.type) {
+            case INTEGER:
+                accessor.handle.set(this, (int) toLong(accessor, value, Integer.MIN_VALUE, Integer.MAX_VALUE));
+                break;
+            case LONG:
+                accessor.handle.set(this, toLong(accessor, value, Long.MIN_VALUE, Long.MAX_VALUE));
+                break;
+            case FLOAT:
+                if (!isFloatingPoint(value)) {
+                    throw invalid(accessor, ErrorCode.BAD_NUMBER, "not a float");
+                }
+                accessor.handle.set(this, Float.parseFloat(value.toString()));
+                break;
+            case DOUBLE:
+                if (!isFloatingPoint(value)) {
+                    throw invalid(accessor, ErrorCode.BAD_NUMBER, "not a double");
+                }
+                accessor.handle.set(this, Double.parseDouble(value.toString()));
+                break;
+            case MAC_ADDRESS:
+                final long macAddress = MacAddress.parse(value);
+                if (macAddress < 0) {
+                    throw invalid(accessor, ErrorCode.BAD_MAC, "not a MAC address");
+                }
+                accessor.handle.set(this, macAddress);
+                break;
+            case INET_ADDRESS:
+                // Literals only, host names are never resolved
+                final InetAddress inetAddress = InetAddressParser.parse(value);
+                if (inetAddress == null) {
+                    throw invalid(accessor, ErrorCode.BAD_IP, "not an IP address literal");
                 }
+                accessor.handle.set(this, inetAddress);
+                break;
+            case INET4_ADDRESS:
+                final long inet4Address = InetAddressParser.parseIPv4(value);
+                if (inet4Address < 0) {
+                    throw invalid(accessor, ErrorCode.BAD_IP, "not an IPv4 address literal");
+                }
+                accessor.handle.set(this, (int) inet4Address);
+                break;
+            case DATE:
+                try {
+                    accessor.handle.set(this, toMillis(value));
+                } catch (ParseException e) {
+                    throw invalid(accessor, ErrorCode.BAD_DATE, e.getMessage() + " at offset " + e.getErrorOffset());
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported field type " + accessor.type);
+        }
+        setPopulated(accessor.ordinal, false);
+    }
 
-                // Add the key to the populate keys list
-                populatedExtensions.add(key);
-            } catch (NoSuchFieldException e) {
-                customExtensions.put(key, extensions.get(key));
-                continue;
-            } catch (IllegalAccessException e) {
-                throw new CEFHandlingException("Error while setting CEF extension values", e);
+    private static CEFHandlingException invalid(CefRev23Schema.Accessor accessor, ErrorCode errorCode, String reason) {
+        FlightRecorderEvents.conversionFailure(accessor.name, accessor.type, errorCode, reason);
+        return new CEFHandlingException("Error setting value to field " + accessor.name + ": " + reason, errorCode, accessor.name);
+    }
+
+    // Decimal integer within the given bounds, parsed like Long.parseLong but without raising NumberFormatException
+    private static long toLong(CefRev23Schema.Accessor accessor, CharSequence value, long min, long max) throws CEFHandlingException {
+        final int length = value.length();
+        final boolean negative = value.charAt(0) == '-';
+        int i = negative || value.charAt(0) == '+' ? 1 : 0;
+        if (i == length) {
+            throw invalid(accessor, ErrorCode.BAD_NUMBER, "not a number");
+        }
+
+        // Accumulate negatively so that the lower bound does not overflow
+        final long limit = negative ? min : -max;
+        long result = 0;
+        for (; i < length; i++) {
+            final int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0) {
+                throw invalid(accessor, ErrorCode.BAD_NUMBER, "not a number");
+            }
+            if (result < (limit + digit) / 10) {
+                throw invalid(accessor, ErrorCode.BAD_NUMBER, "number out of range");
             }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Checks the lexical form accepted by {@link Double#parseDouble(String)}, so that malformed values are reported
+     * without the JDK building a NumberFormatException: surrounding whitespace, an optional sign, then NaN, Infinity,
+     * a decimal or a hexadecimal floating point literal with an optional type suffix.
+     */
+    static boolean isFloatingPoint(CharSequence value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start < end && (value.charAt(start) == '+' || value.charAt(start) == '-')) {
+            start++;
+        }
+        if (start == end) {
+            return false;
+        }
+        if (regionEquals(value, start, end, "NaN") || regionEquals(value, start, end, "Infinity")) {
+            return true;
+        }
+
+        // An optional type suffix follows any literal
+        final char last = value.charAt(end - 1);
+        if (last == 'f' || last == 'F' || last == 'd' || last == 'D') {
+            end--;
+        }
+
+        int i = start;
+        final boolean hex = end - start > 2 && value.charAt(i) == '0' && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X');
+        if (hex) {
+            i += 2;
+        }
+        final int radix = hex ? 16 : 10;
+
+        // Significand, with at least one digit on either side of the optional point
+        int digits = 0;
+        while (i < end && isAsciiDigit(value.charAt(i), radix)) {
+            i++;
+            digits++;
+        }
+        if (i < end && value.charAt(i) == '.') {
+            i++;
+            while (i < end && isAsciiDigit(value.charAt(i), radix)) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        // Exponent, mandatory for hexadecimal literals
+        final char exponent = i < end ? value.charAt(i) : 0;
+        if (hex ? exponent != 'p' && exponent != 'P' : exponent != 'e' && exponent != 'E') {
+            return !hex && i == end;
+        }
+        i++;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        if (i == end) {
+            return false;
+        }
+        while (i < end && isAsciiDigit(value.charAt(i), 10)) {
+            i++;
+        }
+        return i == end;
+    }
+
+    private static boolean isAsciiDigit(char c, int radix) {
+        return c >= '0' && c <= '9' || radix == 16 && (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F');
+    }
+
+    private static boolean regionEquals(CharSequence value, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (value.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Date (timestamps) - epoch millis or one of the textual formats of CEF Appendix A
+    private long toMillis(CharSequence value) throws ParseException {
+        if (timestamps == null) {
+            timestamps = TimestampParser.forLocale(dateLocale);
+        }
+        if (timestampCache != null) {
+            return timestampCache.parse(timestamps, value);
+        }
+        return timestamps.parse(value);
+    }
+
+    private void setPopulated(int ordinal, boolean isNull) {
+        if (extensionBits == null) {
+            extensionBits = new long[CefRev23Schema.get().extensionWords() * 2];
+        }
+        final int word = ordinal >>> 6;
+        final long bit = 1L << ordinal;
+        extensionBits[word] |= bit;
+        if (isNull) {
+            extensionBits[word + extensionBits.length / 2] |= bit;
+        } else {
+            extensionBits[word + extensionBits.length / 2] &= ~bit;
+        }
+    }
+
+    /**
+     * @param ordinal The extension ordinal to start from
+     * @return Ordinal of the first populated extension at or after the given ordinal, or -1
+     */
+    int nextPopulated(int ordinal) {
+        if (extensionBits == null) {
+            return -1;
+        }
+        int word = ordinal >>> 6;
+        final int words = extensionBits.length / 2;
+        if (word >= words) {
+            return -1;
+        }
+        long bits = extensionBits[word] & (-1L << ordinal);
+        while (bits == 0) {
+            if (++word == words) {
+                return -1;
+            }
+            bits = extensionBits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @param ordinal The ordinal of a populated extension
+     * @return true if the extension was populated with a null value
+     */
+    boolean isNull(int ordinal) {
+        return (extensionBits[(ordinal >>> 6) + extensionBits.length / 2] & (1L << ordinal)) != 0;
+    }
+
+    // Restore the default value of an extension field
+    private void clear(CefRev23Schema.Accessor accessor) {
+        switch (accessor.type) {
+            case INTEGER:
+            case INET4_ADDRESS:
+                accessor.handle.set(this, 0);
+                break;
+            case LONG:
+            case DATE:
+            case MAC_ADDRESS:
+                accessor.handle.set(this, 0L);
+                break;
+            case FLOAT:
+                accessor.handle.set(this, 0f);
+                break;
+            case DOUBLE:
+                accessor.handle.set(this, 0d);
+                break;
+            default:
+                accessor.handle.set(this, (Object) null);
+                break;
+        }
+    }
+
+    // The value of an extension as the object exposed by the getters, or null if the extension is not populated
+    private Object value(CefRev23Schema.Accessor accessor) {
+        if (extensionBits == null) {
+            return null;
+        }
+        final int word = accessor.ordinal >>> 6;
+        final long bit = 1L << accessor.ordinal;
+        if ((extensionBits[word] & bit) == 0 || (extensionBits[word + extensionBits.length / 2] & bit) != 0) {
+            return null;
+        }
+
+        switch (accessor.type) {
+            case INTEGER:
+                return (int) accessor.handle.get(this);
+            case LONG:
+                return (long) accessor.handle.get(this);
+            case FLOAT:
+                return (float) accessor.handle.get(this);
+            case DOUBLE:
+                return (double) accessor.handle.get(this);
+            case DATE:
+                return new Date((long) accessor.handle.get(this));
+            case MAC_ADDRESS:
+                return new MacAddress((long) accessor.handle.get(this));
+            case INET4_ADDRESS:
+                return InetAddressParser.toInet4Address((int) accessor.handle.get(this));
+            default:
+                return accessor.handle.get(this);
         }
     }
 
@@ -725,39 +1265,39 @@ public class CefRev23 extends CommonEvent {
     public Map<String, Object> getExtension(boolean populatedOnly, boolean includeCustomExtensions) throws CEFHandlingException {
 
         final HashMap<String, Object> extensions = new HashMap<String, Object>();
-        List headersKeys = Arrays.asList(new String[] {"version", "deviceVendor", "deviceProduct", "deviceVersion", "deviceEventClassId", "name", "severity"});
-
-        for (Field f: fields) {
-            // Exclude header objects
-            if (!headersKeys.contains(f.getName())) {
-                // check if populatedOnly was requested
-
-                    try {
-                        Object value = f.get(this);
-                       if (!populatedOnly){
-                            extensions.put(f.getName(), value);
-                        } else if (populatedOnly && populatedExtensions.contains(f.getName())) {
-                           extensions.put(f.getName(), value);
-                       }
-                    } catch (IllegalAccessException e) {
-                        throw new CEFHandlingException("Error while harvesting keys", e);
-                    }
+
+        final CefRev23Schema.Accessor[] accessors = CefRev23Schema.get().extensions();
+        if (populatedOnly) {
+            if (extensionBits != null) {
+                for (int ordinal = nextPopulated(0); ordinal >= 0; ordinal = nextPopulated(ordinal + 1)) {
+                    extensions.put(accessors[ordinal].name, value(accessors[ordinal]));
                 }
             }
-        if (includeCustomExtensions) {
+        } else {
+            for (CefRev23Schema.Accessor accessor : accessors) {
+                extensions.put(accessor.name, value(accessor));
+            }
+        }
+
+        if (includeCustomExtensions && customExtensions != null) {
             extensions.putAll(customExtensions);
         }
 
         return extensions;
     }
 
-    private SimpleDateFormat dateFormat(boolean containsTZ) {
-
-        if (containsTZ) {
-            return new SimpleDateFormat("yyyy-MMM-dd HH:mm:ss.SSS zzz", this.dateLocale);
-        } else {
-            return new SimpleDateFormat("yyyy-MMM-dd HH:mm:ss.SSS", this.dateLocale);
+    /**
+     * @param key The extension key, either part of the supported CEF standard or a custom extension
+     * @return The value of the extension or null if the extension is not populated
+     * @throws CEFHandlingException when it hits issues reading the extension
+     */
+    @Override
+    public Object getExtension(String key) throws CEFHandlingException {
+        final CefRev23Schema.Accessor accessor = CefRev23Schema.get().extension(key);
+        if (accessor != null) {
+            return value(accessor);
         }
+        return customExtensions == null ? null : customExtensions.get(key);
     }
 
 }
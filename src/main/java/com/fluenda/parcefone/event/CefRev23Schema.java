@@ -0,0 +1,282 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class level description of the headers and extensions held by {@link CefRev23}.
+ * <p>
+ * The schema is built once from the declared fields of the event class and maps every CEF key to a precompiled
+ * {@link VarHandle} and to the {@link FieldType} used to convert raw values. Keys are resolved with a single probe of
+ * an open addressing table that accepts any {@link CharSequence}, so unknown (custom) keys are detected without
+ * exceptions and known keys never need to be copied into Strings.
+ * <p>
+ * Headers are the fields named after {@link CommonEvent#HEADER_KEYS}, extensions are the fields marked with
+ * {@link Extension}. Every other field is internal state of the event and is never exposed as a CEF key, whatever its
+ * type.
+ * <p>
+ * Numeric extensions are stored in primitive fields. Dates, MAC addresses and IPv4 addresses are stored packed into
+ * primitive fields as well, their declared type being given by {@link Packed}. Whether an extension is populated is
+ * tracked by the event in a bitset indexed by {@link Accessor#ordinal}.
+ * <p>
+ * The schema is immutable. A single instance is built lazily on first use (see {@link #get()}) and shared by every
+ * event, so constructing an event does not involve any reflection.
+ */
+final class CefRev23Schema {
+    /**
+     * Types of CEF extensions and the conversion applied to their raw values
+     */
+    enum FieldType {
+        STRING, INTEGER, LONG, FLOAT, DOUBLE, DATE, INET_ADDRESS, INET4_ADDRESS, MAC_ADDRESS;
+
+        static FieldType of(Field field) {
+            final Packed packed = field.getAnnotation(Packed.class);
+            if (packed != null) {
+                return packed.value();
+            }
+
+            final Class<?> type = field.getType();
+            if (type == String.class) {
+                return STRING;
+            } else if (type == int.class) {
+                return INTEGER;
+            } else if (type == long.class) {
+                return LONG;
+            } else if (type == float.class) {
+                return FLOAT;
+            } else if (type == double.class) {
+                return DOUBLE;
+            } else if (type == InetAddress.class) {
+                return INET_ADDRESS;
+            }
+            throw new IllegalStateException("Unsupported type " + type.getName() + " of field " + field.getName());
+        }
+    }
+
+    /**
+     * Marks a field holding a CEF extension, its type being derived from the Java type of the field unless it is
+     * {@link Packed}
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    @interface Extension {
+    }
+
+    /**
+     * Marks a primitive field holding a packed value: milliseconds since epoch for {@link FieldType#DATE}, the 48 bits
+     * of the address for {@link FieldType#MAC_ADDRESS} (<code>long</code>) and the 32 bits of the address for
+     * {@link FieldType#INET4_ADDRESS} (<code>int</code>)
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    @interface Packed {
+        /**
+         * @return The type of the extension
+         */
+        FieldType value();
+    }
+
+    /**
+     * Precompiled accessor of a single header or extension
+     */
+    static final class Accessor {
+        final String name;
+        final int ordinal;
+        final FieldType type;
+        final boolean header;
+        final VarHandle handle;
+
+        private Accessor(String name, int ordinal, FieldType type, boolean header, VarHandle handle) {
+            this.name = name;
+            this.ordinal = ordinal;
+            this.type = type;
+            this.header = header;
+            this.handle = handle;
+        }
+    }
+
+    // Initialization-on-demand holder, the JVM guarantees the schema is built once and safely published
+    private static final class Holder {
+        private static final CefRev23Schema INSTANCE;
+
+        static {
+            try {
+                INSTANCE = new CefRev23Schema(CefRev23.class, MethodHandles.privateLookupIn(CefRev23.class, MethodHandles.lookup()));
+            } catch (IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    private final Accessor[] headers;
+    private final Accessor[] extensions;
+    private final Accessor[] table;
+    private final int mask;
+
+    /**
+     * @return The schema shared by all {@link CefRev23} instances
+     */
+    static CefRev23Schema get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @param eventClass The class describing the event
+     * @param lookup A lookup with private access to the event class
+     */
+    CefRev23Schema(Class<?> eventClass, MethodHandles.Lookup lookup) {
+        final Accessor[] headers = new Accessor[CommonEvent.HEADER_KEYS.size()];
+        final List<Accessor> extensions = new ArrayList<>();
+
+        for (Field field : eventClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            final int headerIndex = CommonEvent.HEADER_KEYS.indexOf(field.getName());
+            if (headerIndex < 0 && !field.isAnnotationPresent(Extension.class)) {
+                // Internal state rather than a CEF key
+                continue;
+            }
+            final FieldType type = FieldType.of(field);
+
+            final VarHandle handle;
+            try {
+                handle = lookup.unreflectVarHandle(field);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to access field " + field.getName(), e);
+            }
+
+            if (headerIndex >= 0) {
+                headers[headerIndex] = new Accessor(field.getName(), headerIndex, type, true, handle);
+            } else {
+                extensions.add(new Accessor(field.getName(), extensions.size(), type, false, handle));
+            }
+        }
+
+        this.headers = headers;
+        this.extensions = extensions.toArray(new Accessor[0]);
+
+        // Keep the table at most 25% full so that probes almost always hit on the first slot
+        final int size = Integer.highestOneBit((headers.length + this.extensions.length) * 4 - 1) << 1;
+        this.table = new Accessor[size];
+        this.mask = size - 1;
+        for (Accessor accessor : headers) {
+            insert(accessor);
+        }
+        for (Accessor accessor : this.extensions) {
+            insert(accessor);
+        }
+    }
+
+    private void insert(Accessor accessor) {
+        int slot = CharSequences.hash(accessor.name) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = accessor;
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        final int length = name.length();
+        if (length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Accessor find(CharSequence key) {
+        return find(CharSequences.hash(key), key, 0, key.length());
+    }
+
+    private Accessor find(int hash, CharSequence text, int start, int end) {
+        int slot = hash & mask;
+        Accessor accessor;
+        while ((accessor = table[slot]) != null) {
+            if (matches(accessor.name, text, start, end)) {
+                return accessor;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @param key The header key
+     * @return The header accessor or null if the key is not a header
+     */
+    Accessor header(CharSequence key) {
+        final Accessor accessor = find(key);
+        return accessor != null && accessor.header ? accessor : null;
+    }
+
+    /**
+     * @param key The extension key
+     * @return The extension accessor or null if the key is a custom extension
+     */
+    Accessor extension(CharSequence key) {
+        final Accessor accessor = find(key);
+        return accessor != null && !accessor.header ? accessor : null;
+    }
+
+    /**
+     * @param text The text holding the extension key
+     * @param start Offset of the first character of the key
+     * @param end Offset following the last character of the key
+     * @return The extension accessor or null if the key is a custom extension
+     */
+    Accessor extension(CharSequence text, int start, int end) {
+        final Accessor accessor = find(CharSequences.hash(text, start, end), text, start, end);
+        return accessor != null && !accessor.header ? accessor : null;
+    }
+
+    /**
+     * @return Header accessors in header order
+     */
+    Accessor[] headers() {
+        return headers;
+    }
+
+    /**
+     * @return Extension accessors in declaration order, indexed by ordinal
+     */
+    Accessor[] extensions() {
+        return extensions;
+    }
+
+    /**
+     * @return Number of <code>long</code> words needed for a bitset holding one bit per extension
+     */
+    int extensionWords() {
+        return (extensions.length + 63) >>> 6;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+/**
+ * Hashing of {@link CharSequence} keys for the open addressing tables and direct-mapped caches of the event package.
+ * <p>
+ * The hash of a key is the one of the equal String, spread so that its high bits also select slots in small tables.
+ * Strings reuse their cached hash code, other sequences (such as views over the bytes of a message) are hashed
+ * without being copied into a String.
+ */
+final class CharSequences {
+    private CharSequences() {
+    }
+
+    /**
+     * @param key The key
+     * @return The spread hash of the key
+     */
+    static int hash(CharSequence key) {
+        if (key instanceof String) {
+            return spread(key.hashCode());
+        }
+        return hash(key, 0, key.length());
+    }
+
+    /**
+     * @param text The text holding the key
+     * @param start Offset of the first character of the key
+     * @param end Offset following the last character of the key
+     * @return The spread hash of the key, equal to the one of the same key given as a String
+     */
+    static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return spread(h);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.fluenda.parcefone.event;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +24,12 @@ import java.util.Map;
  * maintained by HP Enterprise and used by a number of cyber security solutions.
  */
 public abstract class CommonEvent {
+    /**
+     * Keys of the header fields, in the order they appear in a CEF message
+     */
+    public static final List<String> HEADER_KEYS = List.of(
+            "version", "deviceVendor", "deviceProduct", "deviceVersion", "deviceEventClassId", "name", "severity");
+
     /**
      * Default constructor for Common Events
      */
@@ -82,4 +89,15 @@ public abstract class CommonEvent {
      * @throws CEFHandlingException when it hits issues (e.g. IllegalAccessException) reading the extensions
      */
     public abstract Map<String, Object> getExtension(boolean populatedOnly, boolean includeCustomExtensions) throws CEFHandlingException;
+
+    /**
+     * Get the value of a single extension
+     *
+     * @param key The extension key, either part of the supported CEF standard or a custom extension
+     * @return The value of the extension or null if the extension is not populated
+     * @throws CEFHandlingException when it hits issues reading or converting the extension
+     */
+    public Object getExtension(String key) throws CEFHandlingException {
+        return getExtension(true, true).get(key);
+    }
 }
@@ -0,0 +1,288 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the Bean Validation constraints declared on {@link CefRev23} without going through a
+ * {@link jakarta.validation.Validator}.
+ * <p>
+ * The <code>@Size</code>, <code>@Min</code>, <code>@Max</code> and <code>@Pattern</code> annotations of the event
+ * class are read once and compiled into direct checks indexed by extension ordinal. Validating an event only visits
+ * the extensions it holds and allocates nothing unless a constraint is violated. Patterns made of plain alternatives
+ * such as <code>tcp|udp</code> are compared as literals, other patterns are precompiled.
+ * <p>
+ * Results are the same as the default group of a Bean Validation provider, except that only the first violation is
+ * reported. Building the validator fails on constraint annotations it does not support, so that constraints are never
+ * silently ignored.
+ * <p>
+ * The validator is immutable and shared by every thread, see {@link #get()}.
+ */
+public final class CompiledValidator {
+    private final Check[][] checks;
+
+    /**
+     * A constraint violated by an event
+     */
+    public static final class Violation {
+        private final String field;
+        private final String message;
+
+        private Violation(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        /**
+         * @return Name of the extension violating the constraint
+         */
+        public String field() {
+            return field;
+        }
+
+        /**
+         * @return Description of the constraint, worded like the default Bean Validation messages
+         */
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return field + " " + message;
+        }
+    }
+
+    // Initialization-on-demand holder, the validator is compiled once and safely published
+    private static final class Holder {
+        private static final CompiledValidator INSTANCE = new CompiledValidator(CefRev23.class, CefRev23Schema.get());
+    }
+
+    private CompiledValidator(Class<?> eventClass, CefRev23Schema schema) {
+        final Object bootstrap = FlightRecorderEvents.beginValidatorBootstrap();
+
+        final CefRev23Schema.Accessor[] accessors = schema.extensions();
+        this.checks = new Check[accessors.length][];
+        int constrained = 0;
+
+        for (CefRev23Schema.Accessor accessor : accessors) {
+            final Field field;
+            try {
+                field = eventClass.getDeclaredField(accessor.name);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException("Missing field " + accessor.name, e);
+            }
+
+            final List<Check> fieldChecks = new ArrayList<>();
+            for (Annotation annotation : field.getAnnotations()) {
+                final Check check = compile(accessor, annotation);
+                if (check != null) {
+                    fieldChecks.add(check);
+                }
+            }
+            if (!fieldChecks.isEmpty()) {
+                checks[accessor.ordinal] = fieldChecks.toArray(new Check[0]);
+                constrained++;
+            }
+        }
+
+        if (bootstrap != null) {
+            FlightRecorderEvents.commitValidatorBootstrap(bootstrap, eventClass, accessors.length, constrained);
+        }
+    }
+
+    /**
+     * @return The validator of {@link CefRev23} events
+     */
+    public static CompiledValidator get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @param event The event to validate
+     * @return The first violation, in extension declaration order, or null if the event is valid
+     */
+    public Violation validate(CefRev23 event) {
+        for (int ordinal = event.nextPopulated(0); ordinal >= 0; ordinal = event.nextPopulated(ordinal + 1)) {
+            final Check[] fieldChecks = checks[ordinal];
+            if (fieldChecks == null || event.isNull(ordinal)) {
+                continue;
+            }
+            for (Check check : fieldChecks) {
+                if (!check.test(event)) {
+                    return new Violation(CefRev23Schema.get().extensions()[ordinal].name, check.message());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param event The event to validate
+     * @return true if the event satisfies every constraint
+     */
+    public boolean isValid(CefRev23 event) {
+        return validate(event) == null;
+    }
+
+    private static Check compile(CefRev23Schema.Accessor accessor, Annotation annotation) {
+        final CefRev23Schema.FieldType type = accessor.type;
+        final boolean text = type == CefRev23Schema.FieldType.STRING;
+        final boolean integral = type == CefRev23Schema.FieldType.INTEGER || type == CefRev23Schema.FieldType.LONG;
+
+        if (annotation instanceof Size && text) {
+            final Size size = (Size) annotation;
+            return new SizeCheck(accessor.handle, size.min(), size.max());
+        } else if (annotation instanceof Min && integral) {
+            return new BoundCheck(accessor, ((Min) annotation).value(), true);
+        } else if (annotation instanceof Max && integral) {
+            return new BoundCheck(accessor, ((Max) annotation).value(), false);
+        } else if (annotation instanceof Pattern && text) {
+            final Pattern pattern = (Pattern) annotation;
+            int flags = 0;
+            for (Pattern.Flag flag : pattern.flags()) {
+                flags |= flag.getValue();
+            }
+            return new PatternCheck(accessor.handle, pattern.regexp(), flags);
+        } else if (annotation.annotationType().isAnnotationPresent(Constraint.class)) {
+            throw new IllegalStateException("Unsupported constraint " + annotation + " on " + type + " field " + accessor.name);
+        }
+        return null;
+    }
+
+    /**
+     * A single compiled constraint
+     */
+    private interface Check {
+        boolean test(CefRev23 event);
+
+        String message();
+    }
+
+    private static final class SizeCheck implements Check {
+        private final VarHandle handle;
+        private final int min;
+        private final int max;
+
+        private SizeCheck(VarHandle handle, int min, int max) {
+            this.handle = handle;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean test(CefRev23 event) {
+            final int length = ((String) handle.get(event)).length();
+            return length >= min && length <= max;
+        }
+
+        @Override
+        public String message() {
+            return "size must be between " + min + " and " + max;
+        }
+    }
+
+    private static final class BoundCheck implements Check {
+        private final VarHandle handle;
+        private final boolean isLong;
+        private final long bound;
+        private final boolean lower;
+
+        private BoundCheck(CefRev23Schema.Accessor accessor, long bound, boolean lower) {
+            this.handle = accessor.handle;
+            this.isLong = accessor.type == CefRev23Schema.FieldType.LONG;
+            this.bound = bound;
+            this.lower = lower;
+        }
+
+        @Override
+        public boolean test(CefRev23 event) {
+            final long value = isLong ? (long) handle.get(event) : (int) handle.get(event);
+            return lower ? value >= bound : value <= bound;
+        }
+
+        @Override
+        public String message() {
+            return (lower ? "must be greater than or equal to " : "must be less than or equal to ") + bound;
+        }
+    }
+
+    private static final class PatternCheck implements Check {
+        private final VarHandle handle;
+        private final String regexp;
+        private final String[] alternatives;
+        private final boolean ignoreCase;
+        private final java.util.regex.Pattern pattern;
+
+        private PatternCheck(VarHandle handle, String regexp, int flags) {
+            this.handle = handle;
+            this.regexp = regexp;
+
+            final boolean literal = regexp.matches("[A-Za-z0-9 _-]+(\\|[A-Za-z0-9 _-]+)*")
+                    && (flags & ~java.util.regex.Pattern.CASE_INSENSITIVE) == 0;
+            this.alternatives = literal ? regexp.split("\\|") : null;
+            this.ignoreCase = (flags & java.util.regex.Pattern.CASE_INSENSITIVE) != 0;
+            this.pattern = literal ? null : java.util.regex.Pattern.compile(regexp, flags);
+        }
+
+        @Override
+        public boolean test(CefRev23 event) {
+            final String value = (String) handle.get(event);
+            if (pattern != null) {
+                return pattern.matcher(value).matches();
+            }
+            for (String alternative : alternatives) {
+                if (ignoreCase ? equalsIgnoreAsciiCase(alternative, value) : alternative.equals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String message() {
+            return "must match \"" + regexp + "\"";
+        }
+
+        // Case folding of CASE_INSENSITIVE patterns, which only applies to US-ASCII without UNICODE_CASE
+        private static boolean equalsIgnoreAsciiCase(String alternative, String value) {
+            if (alternative.length() != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (toLowerAscii(alternative.charAt(i)) != toLowerAscii(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static char toLowerAscii(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of an extension value that could not be converted to the type of its field, emitted where the
+ * {@link CEFHandlingException} is created, see {@link FlightRecorderEvents}. Failures are rare enough in healthy feeds
+ * that the event is committed without a threshold, but never carries the value itself.
+ */
+@Name("com.fluenda.parcefone.ConversionFailure")
+@Label("CEF Conversion Failure")
+@Category({"ParCEFone", "Parser"})
+@Description("An extension value that could not be converted to the type of its field")
+@StackTrace(false)
+final class ConversionFailureEvent extends jdk.jfr.Event {
+    @Label("Key")
+    @Description("Name of the extension")
+    String key;
+
+    @Label("Field Type")
+    @Description("Type the value should have been converted to")
+    String fieldType;
+
+    @Label("Error Code")
+    String errorCode;
+
+    @Label("Reason")
+    String reason;
+}
@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+/**
+ * Reasons why a CEF message could not be turned into an event
+ */
+public enum ErrorCode {
+    /**
+     * The message does not hold seven header fields or its version is not a digit
+     */
+    BAD_HEADER,
+    /**
+     * A numeric extension does not hold a number of its type
+     */
+    BAD_NUMBER,
+    /**
+     * An address extension does not hold an IP address literal of its type
+     */
+    BAD_IP,
+    /**
+     * A MAC address extension does not hold a MAC address
+     */
+    BAD_MAC,
+    /**
+     * A date extension does not hold a CEF timestamp
+     */
+    BAD_DATE,
+    /**
+     * A typed extension is empty and empty values are not seen as null
+     */
+    EMPTY_VALUE,
+    /**
+     * The event violates a constraint of the specification, e.g. a value that is too long
+     */
+    CONSTRAINT_VIOLATION,
+    /**
+     * The message was rejected by the filter of the parser
+     */
+    REJECTED,
+    /**
+     * Any other failure
+     */
+    BAD_VALUE
+}
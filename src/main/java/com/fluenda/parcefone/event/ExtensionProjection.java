@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A subset of the {@link CefRev23} extensions to keep when parsing, other extensions being skipped before any
+ * conversion or storage.
+ * <p>
+ * The selected keys are resolved once, when the projection is created, into a bitset over the extension ordinals (see
+ * {@link CefRev23#extensionOrdinal(CharSequence, int, int)}), so deciding whether an extension is kept costs a single
+ * bit test once its key has been resolved. Custom extensions (keys outside of the CEF Rev23 specification) are either
+ * all kept or all skipped.
+ * <p>
+ * Projections are immutable and may be shared by threads.
+ */
+public final class ExtensionProjection {
+    private final long[] keys;
+    private final boolean includeCustomExtensions;
+
+    private ExtensionProjection(long[] keys, boolean includeCustomExtensions) {
+        this.keys = keys;
+        this.includeCustomExtensions = includeCustomExtensions;
+    }
+
+    /**
+     * @param keys The CEF Rev23 extension keys to keep, e.g. <code>src</code>, <code>dst</code> or <code>rt</code>
+     * @param includeCustomExtensions Boolean defining if keys that are not part of the base CEF Rev23 specification are kept
+     * @return The projection
+     * @throws IllegalArgumentException when a key is not a CEF Rev23 extension
+     */
+    public static ExtensionProjection of(Collection<String> keys, boolean includeCustomExtensions) {
+        final CefRev23Schema schema = CefRev23Schema.get();
+        final long[] bits = new long[schema.extensionWords()];
+        final List<String> unknown = new ArrayList<>();
+
+        for (String key : keys) {
+            final CefRev23Schema.Accessor accessor = schema.extension(key);
+            if (accessor == null) {
+                unknown.add(key);
+            } else {
+                bits[accessor.ordinal >>> 6] |= 1L << accessor.ordinal;
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Not CEF Rev23 extensions " + unknown);
+        }
+        return new ExtensionProjection(bits, includeCustomExtensions);
+    }
+
+    /**
+     * @param key The extension key
+     * @return true if the extension is kept
+     */
+    public boolean includes(CharSequence key) {
+        return includes(CefRev23.extensionOrdinal(key, 0, key.length()));
+    }
+
+    /**
+     * @param ordinal The extension ordinal, as resolved by {@link CefRev23#extensionOrdinal(CharSequence, int, int)}, or
+     *                -1 for a custom extension
+     * @return true if the extension is kept
+     */
+    public boolean includes(int ordinal) {
+        if (ordinal < 0) {
+            return includeCustomExtensions;
+        }
+        return (keys[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * @return true if keys that are not part of the base CEF Rev23 specification are kept
+     */
+    public boolean includesCustomExtensions() {
+        return includeCustomExtensions;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * <p>
+ * Entry points of the Flight Recorder events of the event package, which keep Flight Recorder out of the way unless
+ * it is in use.
+ * <p>
+ * Nothing is looked up until Flight Recorder has been initialized, and events are only created while enabled in a
+ * running recording. When the <code>jdk.jfr</code> module is missing from the runtime, no class of the module is
+ * ever loaded and no event is emitted. Events are handed over as opaque objects, so that callers do not link against
+ * the event classes.
+ */
+final class FlightRecorderEvents {
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Emit a {@link ConversionFailureEvent} if enabled
+     *
+     * @param key Name of the extension
+     * @param fieldType Type the value should have been converted to
+     * @param errorCode Reason of the failure
+     * @param reason Description of the failure
+     */
+    static void conversionFailure(String key, CefRev23Schema.FieldType fieldType, ErrorCode errorCode, String reason) {
+        if (AVAILABLE && Jfr.isInitialized()) {
+            Jfr.conversionFailure(key, fieldType, errorCode, reason);
+        }
+    }
+
+    /**
+     * @return A begun {@link ValidatorBootstrapEvent}, or null if the event is not enabled
+     */
+    static Object beginValidatorBootstrap() {
+        return AVAILABLE && Jfr.isInitialized() ? Jfr.beginValidatorBootstrap() : null;
+    }
+
+    /**
+     * Commit an event returned by {@link #beginValidatorBootstrap()}
+     *
+     * @param bootstrap The event
+     * @param eventClass The class whose constraints were compiled
+     * @param extensions Number of extensions of the class
+     * @param constrained Number of extensions holding at least one constraint
+     */
+    static void commitValidatorBootstrap(Object bootstrap, Class<?> eventClass, int extensions, int constrained) {
+        Jfr.commitValidatorBootstrap(bootstrap, eventClass, extensions, constrained);
+    }
+
+    // Only loaded once the jdk.jfr module is known to be present
+    private static final class Jfr {
+        static boolean isInitialized() {
+            return FlightRecorder.isInitialized();
+        }
+
+        static void conversionFailure(String key, CefRev23Schema.FieldType fieldType, ErrorCode errorCode, String reason) {
+            if (!ConversionFailureType.TYPE.isEnabled()) {
+                return;
+            }
+            final ConversionFailureEvent event = new ConversionFailureEvent();
+            event.key = key;
+            event.fieldType = fieldType.name();
+            event.errorCode = errorCode.name();
+            event.reason = reason;
+            event.commit();
+        }
+
+        static Object beginValidatorBootstrap() {
+            if (!ValidatorBootstrapType.TYPE.isEnabled()) {
+                return null;
+            }
+            final ValidatorBootstrapEvent event = new ValidatorBootstrapEvent();
+            event.begin();
+            return event;
+        }
+
+        static void commitValidatorBootstrap(Object bootstrap, Class<?> eventClass, int extensions, int constrained) {
+            final ValidatorBootstrapEvent event = (ValidatorBootstrapEvent) bootstrap;
+            event.end();
+            if (event.shouldCommit()) {
+                event.eventClass = eventClass;
+                event.extensions = extensions;
+                event.constrained = constrained;
+                event.commit();
+            }
+        }
+    }
+
+    // Event types are registered on first use, once Flight Recorder is initialized
+    private static final class ConversionFailureType {
+        private static final EventType TYPE = EventType.getEventType(ConversionFailureEvent.class);
+    }
+
+    private static final class ValidatorBootstrapType {
+        private static final EventType TYPE = EventType.getEventType(ValidatorBootstrapEvent.class);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Strict parser of IPv4 and IPv6 address literals that never consults a name resolver.
+ * <p>
+ * Unlike {@link InetAddress#getByName(String)}, anything that is not an address literal (e.g. a host name) is rejected
+ * instead of triggering a DNS lookup. Supported forms are dotted quad IPv4 addresses and IPv6 addresses with or
+ * without <code>::</code> compression, with an embedded IPv4 address (including IPv4-mapped addresses, which are
+ * returned as {@link java.net.Inet4Address}) and optionally enclosed in square brackets. IPv6 scope identifiers are
+ * not supported.
+ * <p>
+ * Recently parsed addresses are kept in a small direct-mapped cache shared by all threads, since a handful of
+ * addresses usually make up most of the traffic. Cached entries are immutable so the cache needs no locking.
+ */
+final class InetAddressParser {
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private static final class Entry {
+        private final String text;
+        private final InetAddress address;
+
+        private Entry(String text, InetAddress address) {
+            this.text = text;
+            this.address = address;
+        }
+    }
+
+    private InetAddressParser() {
+
+    }
+
+    /**
+     * Parse an IPv4 or IPv6 address literal
+     *
+     * @param text The address literal
+     * @return The address or null if the text is not a valid address literal
+     */
+    static InetAddress parse(CharSequence text) {
+        final int slot = CharSequences.hash(text) & (CACHE_SIZE - 1);
+        final Entry entry = CACHE[slot];
+        if (entry != null && entry.text.contentEquals(text)) {
+            return entry.address;
+        }
+
+        final InetAddress address = parseLiteral(text);
+        if (address != null) {
+            CACHE[slot] = new Entry(text.toString(), address);
+        }
+        return address;
+    }
+
+    private static InetAddress parseLiteral(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        if (end > 2 && text.charAt(0) == '[' && text.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+
+        boolean ipv6 = false;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ':') {
+                ipv6 = true;
+                break;
+            }
+        }
+
+        final byte[] address;
+        if (ipv6) {
+            address = new byte[16];
+            if (!parseIPv6(text, start, end, address)) {
+                return null;
+            }
+        } else {
+            address = new byte[4];
+            if (start != 0 || !parseIPv4(text, start, end, address, 0)) {
+                return null;
+            }
+        }
+
+        try {
+            return InetAddress.getByAddress(address);
+        } catch (UnknownHostException e) {
+            // Only thrown for arrays of illegal length
+            return null;
+        }
+    }
+
+    /**
+     * Parse an IPv4 address literal into its 32 bits, without allocating
+     *
+     * @param text The address literal, dotted quad or IPv4-mapped IPv6
+     * @return The address bits as an unsigned value, or -1 if the text is not a valid IPv4 address literal
+     */
+    static long parseIPv4(CharSequence text) {
+        final long address = parseIPv4(text, 0, text.length());
+        if (address >= 0) {
+            return address;
+        }
+
+        // Rare IPv6 forms of IPv4 addresses
+        final InetAddress parsed = parse(text);
+        if (parsed instanceof Inet4Address) {
+            return toInt((Inet4Address) parsed) & 0xFFFFFFFFL;
+        }
+        return -1;
+    }
+
+    /**
+     * Parse a dotted quad IPv4 address
+     *
+     * @param text The text holding the address
+     * @param start Offset of the first character of the address
+     * @param end Offset following the last character of the address
+     * @param address Destination of the four address bytes
+     * @param offset Offset of the first address byte within the destination
+     * @return false if the text is not a valid IPv4 address
+     */
+    static boolean parseIPv4(CharSequence text, int start, int end, byte[] address, int offset) {
+        final long bits = parseIPv4(text, start, end);
+        if (bits < 0) {
+            return false;
+        }
+        address[offset] = (byte) (bits >>> 24);
+        address[offset + 1] = (byte) (bits >>> 16);
+        address[offset + 2] = (byte) (bits >>> 8);
+        address[offset + 3] = (byte) bits;
+        return true;
+    }
+
+    /**
+     * @param address An IPv4 address
+     * @return The 32 bits of the address
+     */
+    static int toInt(Inet4Address address) {
+        final byte[] bytes = address.getAddress();
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+    }
+
+    /**
+     * @param address The 32 bits of an IPv4 address
+     * @return The address
+     */
+    static Inet4Address toInet4Address(int address) {
+        final byte[] bytes = {(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+        try {
+            return (Inet4Address) InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            // Only thrown for arrays of illegal length
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Dotted quad between start and end as an unsigned value, or -1
+    private static long parseIPv4(CharSequence text, int start, int end) {
+        long address = 0;
+        int octets = 0;
+        int value = 0;
+        int digits = 0;
+
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 3) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            } else if (c == '.' && digits > 0 && octets < 3 && value <= 255) {
+                address = address << 8 | value;
+                octets++;
+                value = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+
+        if (digits == 0 || octets != 3 || value > 255) {
+            return -1;
+        }
+        return address << 8 | value;
+    }
+
+    // Value of an ASCII hexadecimal digit, or -1. Unlike Character.digit, other Unicode digits (e.g. fullwidth) are refused
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean parseIPv6(CharSequence text, int start, int end, byte[] address) {
+        int groups = 0;
+        int compressedAt = -1;
+        int i = start;
+
+        if (i < end && text.charAt(i) == ':') {
+            if (i + 1 >= end || text.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressedAt = 0;
+            i += 2;
+        }
+
+        while (i < end) {
+            if (groups == 8) {
+                return false;
+            }
+
+            final int groupStart = i;
+            int value = 0;
+            int digit;
+            while (i < end && (digit = hexDigit(text.charAt(i))) >= 0) {
+                if (i - groupStart == 4) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+
+            if (i < end && text.charAt(i) == '.') {
+                // Embedded IPv4 address, must be the last 32 bits
+                if (groups > 6 || !parseIPv4(text, groupStart, end, address, groups * 2)) {
+                    return false;
+                }
+                groups += 2;
+                break;
+            }
+
+            if (i == groupStart) {
+                return false;
+            }
+            address[groups * 2] = (byte) (value >> 8);
+            address[groups * 2 + 1] = (byte) value;
+            groups++;
+
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i++) != ':' || i == end) {
+                return false;
+            }
+            if (text.charAt(i) == ':') {
+                if (compressedAt >= 0) {
+                    return false;
+                }
+                compressedAt = groups;
+                i++;
+            }
+        }
+
+        if (compressedAt < 0) {
+            return groups == 8;
+        }
+        if (groups == 8) {
+            return false;
+        }
+
+        // Move the groups following "::" to the end of the address and zero the gap
+        final int tail = (groups - compressedAt) * 2;
+        final int gapStart = compressedAt * 2;
+        System.arraycopy(address, gapStart, address, 16 - tail, tail);
+        for (int j = gapStart; j < 16 - tail; j++) {
+            address[j] = 0;
+        }
+        return true;
+    }
+}
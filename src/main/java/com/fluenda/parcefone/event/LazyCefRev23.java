@@ -0,0 +1,216 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link CefRev23} that converts extensions on demand.
+ * <p>
+ * The event keeps the raw CEF message together with the offsets of every extension key and value. An extension is
+ * only converted (e.g. parsing an address or a date) the first time it is read through {@link #getExtension(String)},
+ * after which the converted value is memoized. Reading all extensions at once, e.g. through
+ * {@link #getExtension(boolean, boolean)}, converts whatever has not been converted yet.
+ * <p>
+ * Because conversion is deferred, a malformed value is reported as a {@link CEFHandlingException} when it is first
+ * read rather than when the message is parsed. Call {@link #decodeAll()} to surface conversion errors upfront.
+ */
+public class LazyCefRev23 extends CefRev23 {
+    private final String message;
+    private final boolean allowNulls;
+
+    // Key start, key end, value start and value end of every pending extension
+    private int[] offsets = new int[64];
+    private int count;
+
+    // One bit per extension, set once the extension has been converted
+    private long[] decoded = new long[1];
+
+    private Slice keySlice;
+    private Slice valueSlice;
+
+    /**
+     * @param locale Locale for date objects
+     * @param message The raw CEF message the extension offsets refer to
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, conversion may fail depending on extension types
+     */
+    public LazyCefRev23(Locale locale, String message, boolean allowNulls) {
+        this(locale, null, message, allowNulls);
+    }
+
+    /**
+     * @param locale Locale for date objects
+     * @param timestampCache Cache shared with other events to avoid parsing repeated timestamps, or null to disable caching
+     * @param message The raw CEF message the extension offsets refer to
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, conversion may fail depending on extension types
+     */
+    public LazyCefRev23(Locale locale, TimestampCache timestampCache, String message, boolean allowNulls) {
+        super(locale, timestampCache);
+        this.message = message;
+        this.allowNulls = allowNulls;
+    }
+
+    /**
+     * Register an extension to be converted on demand
+     *
+     * @param keyStart Offset of the first character of the key within the message
+     * @param keyEnd Offset following the last character of the key
+     * @param valueStart Offset of the first character of the value within the message
+     * @param valueEnd Offset following the last character of the value
+     */
+    public void addExtension(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        final int index = count * 4;
+        if (index + 4 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        if ((count >> 6) >= decoded.length) {
+            decoded = Arrays.copyOf(decoded, decoded.length * 2);
+        }
+        offsets[index] = keyStart;
+        offsets[index + 1] = keyEnd;
+        offsets[index + 2] = valueStart;
+        offsets[index + 3] = valueEnd;
+        count++;
+    }
+
+    /**
+     * Convert every extension that has not been read yet
+     *
+     * @throws CEFHandlingException when an extension cannot be converted to its type
+     */
+    public void decodeAll() throws CEFHandlingException {
+        // In message order so that repeated keys keep their last value, as they would when parsed eagerly
+        for (int i = 0; i < count; i++) {
+            if (!isDecoded(i)) {
+                super.setExtension(key(i), value(i), allowNulls);
+                decoded[i >> 6] |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * @param key The extension key, either part of the supported CEF standard or a custom extension
+     * @return The value of the extension or null if the extension is not populated
+     * @throws CEFHandlingException when the extension cannot be converted to its type
+     */
+    @Override
+    public Object getExtension(String key) throws CEFHandlingException {
+        // The last occurrence of a key wins
+        for (int i = count - 1; i >= 0; i--) {
+            if (keyEquals(i, key)) {
+                if (!isDecoded(i)) {
+                    super.setExtension(key(i), value(i), allowNulls);
+                    for (int j = i; j >= 0; j--) {
+                        if (keyEquals(j, key)) {
+                            decoded[j >> 6] |= 1L << j;
+                        }
+                    }
+                }
+                break;
+            }
+        }
+        return super.getExtension(key);
+    }
+
+    /**
+     * @param populatedOnly Boolean defining if Map should include all fields supported by {@link com.fluenda.parcefone.event.CefRev23}
+     * @param includeCustomExtensions Boolean defining if Map should include parsed keys that are not supported part of the base CEF Rev23 specification
+     * @return A map containing the keys and values of CEF extensions
+     * @throws CEFHandlingException when an extension cannot be converted to its type
+     */
+    @Override
+    public Map<String, Object> getExtension(boolean populatedOnly, boolean includeCustomExtensions) throws CEFHandlingException {
+        decodeAll();
+        return super.getExtension(populatedOnly, includeCustomExtensions);
+    }
+
+    /**
+     * Clear the event, including the extensions registered for conversion on demand. The raw message is kept, so a
+     * reset lazy event may only be populated through {@link #setExtension(CharSequence, CharSequence, boolean)}.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        count = 0;
+        Arrays.fill(decoded, 0L);
+    }
+
+    private boolean isDecoded(int extension) {
+        return (decoded[extension >> 6] & (1L << extension)) != 0;
+    }
+
+    private boolean keyEquals(int extension, String key) {
+        final int start = offsets[extension * 4];
+        final int length = offsets[extension * 4 + 1] - start;
+        return length == key.length() && message.regionMatches(start, key, 0, length);
+    }
+
+    private CharSequence key(int extension) {
+        if (keySlice == null) {
+            keySlice = new Slice(message);
+        }
+        return keySlice.reset(offsets[extension * 4], offsets[extension * 4 + 1]);
+    }
+
+    private CharSequence value(int extension) {
+        if (valueSlice == null) {
+            valueSlice = new Slice(message);
+        }
+        return valueSlice.reset(offsets[extension * 4 + 2], offsets[extension * 4 + 3]);
+    }
+
+    /**
+     * Reusable view over a region of the message, only handed to conversions that do not retain it
+     */
+    private static final class Slice implements CharSequence {
+        private final String message;
+        private int start;
+        private int end;
+
+        private Slice(String message) {
+            this.message = message;
+        }
+
+        private Slice reset(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return message.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return message.substring(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return message.substring(start, end);
+        }
+    }
+}
@@ -18,8 +18,6 @@ package com.fluenda.parcefone.event;
 
 import java.util.Arrays;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Media Access Control Address based on com.martiansoftware.macnificent.MacAddress
@@ -33,20 +31,6 @@ public class MacAddress implements Comparable<MacAddress> {
 
     private static final char STANDARD_SEPARATOR = ':';
 
-    private static final Pattern ADDRESS_PATTERN;
-
-    static {
-        final StringBuilder patternBuilder = new StringBuilder("^\\s*");
-        for (int i = 1; i <= ADDRESS_LENGTH; i++) {
-            patternBuilder.append("([0-9a-fA-F]{2})");
-            if (i != ADDRESS_LENGTH) {
-                patternBuilder.append("(?:[\\s-:._]?)"); // Ignore element separators
-            }
-        }
-        patternBuilder.append("\\s*$");
-        ADDRESS_PATTERN = Pattern.compile(patternBuilder.toString());
-    }
-
     private final byte[] address;
 
     /**
@@ -58,6 +42,56 @@ public class MacAddress implements Comparable<MacAddress> {
         address = parseMacAddress(macAddress);
     }
 
+    /**
+     * MAC Address constructor from the packed form returned by {@link #parse(CharSequence)}
+     *
+     * @param macAddress The 48 bits of the address
+     */
+    MacAddress(final long macAddress) {
+        address = new byte[ADDRESS_LENGTH];
+        for (int i = 0; i < ADDRESS_LENGTH; i++) {
+            address[i] = (byte) (macAddress >>> (8 * (ADDRESS_LENGTH - 1 - i)));
+        }
+    }
+
+    /**
+     * Parse hexadecimal encoded values with or without separators, as accepted by {@link #MacAddress(String)}, without
+     * allocating
+     *
+     * @param macAddress Hexadecimal encoded address
+     * @return The 48 bits of the address, or -1 if the value is not a valid address
+     */
+    static long parse(final CharSequence macAddress) {
+        final int length = macAddress.length();
+        int i = 0;
+        while (i < length && isWhitespace(macAddress.charAt(i))) {
+            i++;
+        }
+
+        long bits = 0;
+        for (int octet = 0; octet < ADDRESS_LENGTH; octet++) {
+            if (octet != 0 && i < length && isSeparator(macAddress.charAt(i))) {
+                // Ignore element separators
+                i++;
+            }
+            if (i + 2 > length) {
+                return -1;
+            }
+            final int high = Character.digit(macAddress.charAt(i), 16);
+            final int low = Character.digit(macAddress.charAt(i + 1), 16);
+            if (high < 0 || low < 0 || macAddress.charAt(i) > 'f' || macAddress.charAt(i + 1) > 'f') {
+                return -1;
+            }
+            bits = bits << 8 | high << 4 | low;
+            i += 2;
+        }
+
+        while (i < length && isWhitespace(macAddress.charAt(i))) {
+            i++;
+        }
+        return i == length ? bits : -1;
+    }
+
     /**
      * Get Byte Array of Address using Arrays.copyOf()
      *
@@ -151,21 +185,21 @@ public class MacAddress implements Comparable<MacAddress> {
         return comparison;
     }
 
-    private byte[] parseMacAddress(final String macAddress) {
+    private static byte[] parseMacAddress(final String macAddress) {
         Objects.requireNonNull(macAddress, "Address required");
 
-        final Matcher matcher = ADDRESS_PATTERN.matcher(macAddress);
-        if (matcher.matches()) {
-            final byte[] parsedAddress = new byte[ADDRESS_LENGTH];
-            for (int group = 1; group <= ADDRESS_LENGTH; group++) {
-                final String matchedGroup = matcher.group(group);
-                final int parsedGroup = Integer.parseInt(matchedGroup, 16);
-                final int index = group - 1;
-                parsedAddress[index] = (byte) parsedGroup;
-            }
-            return parsedAddress;
-        } else {
+        final long bits = parse(macAddress);
+        if (bits < 0) {
             throw new IllegalArgumentException(String.format("Address not valid [%s]", macAddress));
         }
+        return new MacAddress(bits).address;
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isSeparator(final char c) {
+        return isWhitespace(c) || c == '-' || c == ':' || c == '.' || c == '_';
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Syslog header found in front of the CEF signature, decoded the first time one of its fields is read.
+ * <p>
+ * Parsing only records where the header is: either a range of the message, when the message is an immutable String,
+ * or a copy of the raw bytes of the header, when the message is held in a buffer owned by the caller. The header text
+ * itself is only extracted once it is read.
+ * <p>
+ * Both RFC 3164 headers (e.g. <code>&lt;134&gt;Oct 17 10:00:00 host</code>) and RFC 5424 headers (e.g.
+ * <code>&lt;134&gt;1 2025-10-17T10:00:00.000Z host app - - -</code>) are recognised. Decoding is lenient: fields that
+ * cannot be located are reported as null, only a timestamp that is present but malformed is an error.
+ */
+final class SyslogHeader {
+    private static final String NIL = "-";
+
+    // Either the message holding the header or the UTF-8 bytes of the header alone
+    private final String message;
+    private final byte[] utf8;
+    private final int start;
+    private final int end;
+
+    private String text;
+    private boolean decoded;
+    private int priority = -1;
+    private String timestamp;
+    private String hostname;
+
+    /**
+     * @param message The message holding the header
+     * @param start Offset of the first character of the header
+     * @param end Offset following the header, without the space separating it from the CEF signature
+     */
+    SyslogHeader(String message, int start, int end) {
+        this.message = message;
+        this.utf8 = null;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param utf8 The UTF-8 bytes of the header, without the space separating it from the CEF signature
+     */
+    SyslogHeader(byte[] utf8) {
+        this.message = null;
+        this.utf8 = utf8;
+        this.start = 0;
+        this.end = utf8.length;
+    }
+
+    /**
+     * @return The raw header
+     */
+    String text() {
+        if (text == null) {
+            text = message != null ? message.substring(start, end) : new String(utf8, StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+
+    /**
+     * @return The PRI value (facility * 8 + severity) or -1 if the header holds none
+     */
+    int priority() {
+        decode();
+        return priority;
+    }
+
+    /**
+     * @return The host name or null if the header holds none
+     */
+    String hostname() {
+        decode();
+        return hostname;
+    }
+
+    /**
+     * @return The timestamp or null if the header holds none
+     * @throws CEFHandlingException when the timestamp cannot be parsed
+     */
+    Date timestamp() throws CEFHandlingException {
+        decode();
+        if (timestamp == null) {
+            return null;
+        }
+
+        try {
+            if (Character.isDigit(timestamp.charAt(0))) {
+                return new Date(parseIso(timestamp));
+            }
+            // RFC 3164 timestamps use English month names
+            return new Date(TimestampParser.forLocale(Locale.ENGLISH).parse(timestamp));
+        } catch (ParseException | DateTimeParseException e) {
+            throw new CEFHandlingException("Error parsing syslog timestamp " + timestamp, e);
+        }
+    }
+
+    private static long parseIso(String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // Some RFC 3164 senders use ISO 8601 timestamps without an offset
+            return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+
+    private void decode() {
+        if (decoded) {
+            return;
+        }
+        decoded = true;
+
+        final String header = text();
+        int offset = 0;
+        if (header.startsWith("<")) {
+            final int close = header.indexOf('>');
+            if (close > 1 && close < 5 && isDigits(header, 1, close)) {
+                priority = Integer.parseInt(header, 1, close, 10);
+                offset = close + 1;
+            }
+        }
+
+        final List<String> tokens = tokens(header, offset);
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        final String first = tokens.get(0);
+        if (priority >= 0 && first.length() <= 2 && isDigits(first, 0, first.length()) && tokens.size() > 1) {
+            // RFC 5424: VERSION TIMESTAMP HOSTNAME APP-NAME PROCID MSGID STRUCTURED-DATA
+            timestamp = nil(tokens.get(1));
+            hostname = tokens.size() > 2 ? nil(tokens.get(2)) : null;
+            return;
+        }
+
+        int next;
+        if (Character.isDigit(first.charAt(0))) {
+            timestamp = first;
+            next = 1;
+        } else {
+            // RFC 3164: Mmm dd hh:mm:ss, the day being padded with a space rather than a zero
+            next = 0;
+            while (next < tokens.size() && tokens.get(next).indexOf(':') < 0) {
+                next++;
+            }
+            if (next == tokens.size()) {
+                return;
+            }
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i <= next; i++) {
+                final String token = tokens.get(i);
+                if (i > 0) {
+                    builder.append(' ');
+                }
+                if (i == 1 && token.length() == 1) {
+                    builder.append('0');
+                }
+                builder.append(token);
+            }
+            timestamp = builder.toString();
+            next++;
+        }
+
+        // A trailing colon marks a tag rather than a host name
+        if (next < tokens.size() && !tokens.get(next).endsWith(":")) {
+            hostname = tokens.get(next);
+        }
+    }
+
+    private static List<String> tokens(String text, int start) {
+        final List<String> tokens = new ArrayList<>();
+        int tokenStart = -1;
+        for (int i = start; i <= text.length(); i++) {
+            if (i == text.length() || Character.isWhitespace(text.charAt(i))) {
+                if (tokenStart >= 0) {
+                    tokens.add(text.substring(tokenStart, i));
+                    tokenStart = -1;
+                }
+            } else if (tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isDigits(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return end > start;
+    }
+
+    private static String nil(String value) {
+        return NIL.equals(value) ? null : value;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.text.ParseException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small cache mapping raw timestamp text to the parsed instant.
+ * <p>
+ * Bursty feeds often carry the exact same timestamp (e.g. <code>rt</code>) on thousands of consecutive events. The
+ * cache is direct-mapped: each timestamp hashes to a single slot holding the most recent text seen for that slot and
+ * its instant, so a lookup costs one hash and one comparison. Slots hold immutable entries and are replaced without
+ * locking, so a single cache can be shared by any number of threads and parsers.
+ * <p>
+ * Values without a year or a time zone are resolved against the current year and default time zone when they are
+ * first parsed and cached as such. Values that cannot be parsed are never cached.
+ */
+public class TimestampCache {
+    /**
+     * Number of slots used by {@link #TimestampCache()}
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry {
+        private final TimestampParser parser;
+        private final String text;
+        private final long millis;
+
+        private Entry(TimestampParser parser, String text, long millis) {
+            this.parser = parser;
+            this.text = text;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * Creates a cache with {@link #DEFAULT_CAPACITY} slots
+     */
+    public TimestampCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Number of slots, rounded up to the next power of two
+     */
+    public TimestampCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Parse a timestamp, reusing the instant of an identical text parsed earlier with the same parser
+     *
+     * @param parser The parser of the event locale
+     * @param value The raw timestamp
+     * @return Milliseconds since epoch
+     * @throws ParseException when the value is not a valid CEF timestamp
+     */
+    long parse(TimestampParser parser, CharSequence value) throws ParseException {
+        final int slot = CharSequences.hash(value) & mask;
+        final Entry entry = entries[slot];
+        if (entry != null && entry.parser == parser && entry.text.contentEquals(value)) {
+            hits.increment();
+            return entry.millis;
+        }
+
+        misses.increment();
+        final long millis = parser.parse(value);
+        entries[slot] = new Entry(parser, value.toString(), millis);
+        return millis;
+    }
+
+    /**
+     * @return Number of slots
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of lookups that had to parse the timestamp
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Remove every cached timestamp and reset the counters, e.g. once the default time zone has changed
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "TimestampCache{capacity=" + entries.length + ", hits=" + hits() + ", misses=" + misses() + "}";
+    }
+}
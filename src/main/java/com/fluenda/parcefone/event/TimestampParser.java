@@ -0,0 +1,381 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hand-written parser of the CEF timestamp formats (CEF Appendix A) producing milliseconds since epoch.
+ * <p>
+ * Supported values are milliseconds since epoch and the textual formats
+ * <code>MMM dd [yyyy] HH:mm:ss[.SSS] [zzz]</code>. Month names are matched case-insensitively against the full and
+ * abbreviated names of the parser locale; time zone names are matched against the zone names of the same locale.
+ * Values without a year are placed in the current year and values without a time zone in the default time zone.
+ * Day and hour overflows roll over to the following day or month, as they would with a lenient
+ * {@link java.text.SimpleDateFormat}.
+ * <p>
+ * Parsers are immutable (apart from benign caches) and shared between threads, see {@link #forLocale(Locale)}.
+ * Malformed values are reported with exceptions that do not record a stack trace.
+ */
+final class TimestampParser {
+    private static final Map<Locale, TimestampParser> PARSERS = new ConcurrentHashMap<>();
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final Locale locale;
+
+    // Full and abbreviated month names, the month is the index modulo 12
+    private final String[] months;
+
+    // Zone name (upper case) to offset, built the first time a value holds a time zone
+    private volatile Map<String, Integer> zones;
+
+    // Last zone name seen, so that repeated values do not need to be copied into a String
+    private volatile Zone lastZone;
+
+    // ParseException of malformed values, these are expected on noisy feeds so the stack trace is not recorded
+    private static final class InvalidTimestampException extends ParseException {
+        private static final long serialVersionUID = 1L;
+
+        private InvalidTimestampException(String message, int errorOffset) {
+            super(message, errorOffset);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class Zone {
+        private final String name;
+        private final int offset;
+
+        private Zone(String name, int offset) {
+            this.name = name;
+            this.offset = offset;
+        }
+    }
+
+    private TimestampParser(Locale locale) {
+        this.locale = locale;
+
+        final DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        final String[] full = symbols.getMonths();
+        final String[] abbreviated = symbols.getShortMonths();
+        this.months = new String[24];
+        for (int i = 0; i < 12; i++) {
+            this.months[i] = full[i];
+            this.months[i + 12] = abbreviated[i];
+        }
+    }
+
+    /**
+     * @param locale Locale of month and time zone names
+     * @return The parser shared by every event using this locale
+     */
+    static TimestampParser forLocale(Locale locale) {
+        final TimestampParser parser = PARSERS.get(locale);
+        if (parser != null) {
+            return parser;
+        }
+        return PARSERS.computeIfAbsent(locale, TimestampParser::new);
+    }
+
+    /**
+     * Parse a CEF timestamp
+     *
+     * @param value Milliseconds since epoch or one of the textual CEF timestamp formats
+     * @return Milliseconds since epoch
+     * @throws ParseException when the value is not a valid CEF timestamp, the offset points at the offending character
+     */
+    long parse(CharSequence value) throws ParseException {
+        final int length = value.length();
+
+        int monthEnd = 0;
+        while (monthEnd < length && !isWhitespace(value.charAt(monthEnd))) {
+            monthEnd++;
+        }
+        if (monthEnd == length) {
+            return parseEpoch(value);
+        }
+
+        final int month = month(value, monthEnd);
+        if (month < 0) {
+            throw invalid("Unknown month", 0);
+        }
+
+        int i = monthEnd + 1;
+        final int day = digits(value, i, 2);
+        i = expect(value, i + 2, ' ');
+
+        int year = -1;
+        if (i + 4 < length && isWhitespace(value.charAt(i + 4))) {
+            year = digits(value, i, 4, false);
+            if (year >= 0) {
+                i += 5;
+            }
+        }
+
+        final int hour = digits(value, i, 2);
+        if (value.charAt(i) > '2') {
+            throw invalid("Invalid hour", i);
+        }
+        i = expect(value, i + 2, ':');
+        final int minute = sexagesimal(value, i);
+        i = expect(value, i + 2, ':');
+        final int second = sexagesimal(value, i);
+        i += 2;
+
+        int milli = 0;
+        if (i < length && value.charAt(i) == '.') {
+            milli = digits(value, i + 1, 3);
+            i += 4;
+        }
+
+        final boolean hasZone = i < length;
+        int offset = 0;
+        if (hasZone) {
+            i = expect(value, i, ' ');
+            if (i == length) {
+                throw invalid("Missing time zone", i);
+            }
+            for (int j = i; j < length; j++) {
+                if (!isWordCharacter(value.charAt(j))) {
+                    throw invalid("Invalid time zone", j);
+                }
+            }
+            offset = zoneOffset(value, i, length);
+        }
+
+        final ZoneId defaultZone = hasZone ? null : TimeZone.getDefault().toZoneId();
+        if (year < 0) {
+            year = LocalDate.now(defaultZone != null ? defaultZone : ZoneOffset.ofTotalSeconds(offset / 1000)).getYear();
+        }
+
+        final long local = (daysFromCivil(year, month + 1, 1) + day - 1) * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L + milli;
+        if (hasZone) {
+            return local - offset;
+        }
+        return local - defaultOffset(defaultZone, local);
+    }
+
+    private static long parseEpoch(CharSequence value) throws ParseException {
+        final int length = value.length();
+        final boolean negative = length > 0 && value.charAt(0) == '-';
+        int i = length > 0 && (negative || value.charAt(0) == '+') ? 1 : 0;
+        if (i == length) {
+            throw invalid("Invalid timestamp", 0);
+        }
+
+        // Accumulate negatively so that Long.MIN_VALUE does not overflow
+        long result = 0;
+        for (; i < length; i++) {
+            final int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0 || result < (Long.MIN_VALUE + digit) / 10) {
+                throw invalid("Invalid timestamp", 0);
+            }
+            result = result * 10 - digit;
+        }
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw invalid("Invalid timestamp", 0);
+            }
+            return -result;
+        }
+        return result;
+    }
+
+    private static ParseException invalid(String message, int errorOffset) {
+        return new InvalidTimestampException(message, errorOffset);
+    }
+
+    private int month(CharSequence value, int end) {
+        for (int m = 0; m < months.length; m++) {
+            if (equalsIgnoreCase(months[m], value, 0, end)) {
+                return m % 12;
+            }
+        }
+        return -1;
+    }
+
+    private int zoneOffset(CharSequence value, int start, int end) throws ParseException {
+        if (equalsIgnoreCase("GMT", value, start, end)) {
+            return 0;
+        }
+
+        final Zone last = lastZone;
+        if (last != null && equalsIgnoreCase(last.name, value, start, end)) {
+            return last.offset;
+        }
+
+        final String name = value.subSequence(start, end).toString();
+        final Integer offset = zones().get(name.toUpperCase(Locale.ROOT));
+        if (offset == null) {
+            throw invalid("Unknown time zone " + name, start);
+        }
+        lastZone = new Zone(name, offset);
+        return offset;
+    }
+
+    private Map<String, Integer> zones() {
+        Map<String, Integer> zones = this.zones;
+        if (zones == null) {
+            zones = buildZones();
+            this.zones = zones;
+        }
+        return zones;
+    }
+
+    private Map<String, Integer> buildZones() {
+        final String[][] zoneStrings = DateFormatSymbols.getInstance(locale).getZoneStrings();
+        final Map<String, Integer> zones = new HashMap<>();
+
+        // Ambiguous abbreviations resolve to the default time zone first, then to the first zone using them
+        final List<String[]> ordered = new ArrayList<>(zoneStrings.length + 1);
+        final String defaultId = TimeZone.getDefault().getID();
+        for (String[] names : zoneStrings) {
+            if (names[0].equals(defaultId)) {
+                ordered.add(names);
+            }
+        }
+        for (String[] names : zoneStrings) {
+            ordered.add(names);
+        }
+
+        for (String[] names : ordered) {
+            final TimeZone zone = TimeZone.getTimeZone(names[0]);
+            final int standard = zone.getRawOffset();
+            final int daylight = standard + zone.getDSTSavings();
+            for (int i = 1; i < names.length && i < 5; i++) {
+                if (names[i] != null && !names[i].isEmpty()) {
+                    zones.putIfAbsent(names[i].toUpperCase(Locale.ROOT), i < 3 ? standard : daylight);
+                }
+            }
+        }
+        return zones;
+    }
+
+    private static long defaultOffset(ZoneId zone, long local) {
+        final ZoneRules rules = zone.getRules();
+        if (rules.isFixedOffset()) {
+            return rules.getOffset(LocalDateTime.MIN).getTotalSeconds() * 1000L;
+        }
+
+        final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000L), 0, ZoneOffset.UTC);
+        final ZoneOffsetTransition transition = rules.getTransition(dateTime);
+        if (transition != null && transition.isOverlap()) {
+            // Ambiguous local time, prefer standard time
+            return transition.getOffsetAfter().getTotalSeconds() * 1000L;
+        }
+        // Within a gap this is the offset before the transition, moving the time forward
+        return rules.getOffset(dateTime).getTotalSeconds() * 1000L;
+    }
+
+    // Days from 1970-01-01 to the given proleptic Gregorian date
+    private static long daysFromCivil(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    private static int digits(CharSequence value, int start, int count) throws ParseException {
+        return digits(value, start, count, true);
+    }
+
+    private static int digits(CharSequence value, int start, int count, boolean required) throws ParseException {
+        if (start + count > value.length()) {
+            if (required) {
+                throw invalid("Unexpected end of timestamp", value.length());
+            }
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                if (required) {
+                    throw invalid("Expected a digit", i);
+                }
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static int sexagesimal(CharSequence value, int start) throws ParseException {
+        final int result = digits(value, start, 2);
+        if (result > 59) {
+            throw invalid("Invalid minute or second", start);
+        }
+        return result;
+    }
+
+    private static int expect(CharSequence value, int index, char separator) throws ParseException {
+        if (index >= value.length()) {
+            throw invalid("Unexpected end of timestamp", index);
+        }
+        final char c = value.charAt(index);
+        if (separator == ' ' ? !isWhitespace(c) : c != separator) {
+            throw invalid("Expected '" + separator + "'", index);
+        }
+        return index + 1;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean equalsIgnoreCase(String name, CharSequence value, int start, int end) {
+        final int length = name.length();
+        if (length == 0 || length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char a = name.charAt(i);
+            final char b = value.charAt(start + i);
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                    && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering the compilation of the constraints of {@link CefRev23} by {@link CompiledValidator},
+ * which happens once per class loader, on the first validated parse. Only recorded if Flight Recorder is already
+ * running at that time, e.g. when started from the command line.
+ */
+@Name("com.fluenda.parcefone.ValidatorBootstrap")
+@Label("CEF Validator Bootstrap")
+@Category({"ParCEFone", "Validation"})
+@Description("Compilation of the constraints declared on the CEF event class")
+final class ValidatorBootstrapEvent extends jdk.jfr.Event {
+    @Label("Event Class")
+    Class<?> eventClass;
+
+    @Label("Extensions")
+    @Description("Number of extensions of the event class")
+    int extensions;
+
+    @Label("Constrained Extensions")
+    @Description("Number of extensions holding at least one constraint")
+    int constrained;
+}
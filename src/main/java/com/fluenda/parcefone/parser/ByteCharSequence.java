@@ -0,0 +1,167 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable {@link CharSequence} view over a range of a byte array or {@link ByteBuffer} holding UTF-8 text.
+ * <p>
+ * {@link #charAt(int)} returns each byte as an unsigned char, which allows the ASCII delimiters of the Common Event
+ * Format to be located without decoding the bytes (UTF-8 never uses bytes below 0x80 within multi-byte sequences).
+ * Characters read this way are only meaningful when the range is pure ASCII; {@link #toString()} always decodes the
+ * range as UTF-8.
+ * <p>
+ * Views do not copy the underlying bytes and are only valid for as long as the caller leaves them untouched.
+ */
+final class ByteCharSequence implements CharSequence {
+    private byte[] array;
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    /**
+     * Point the view at a range of a byte array
+     *
+     * @param array The backing array
+     * @param offset Offset of the first byte
+     * @param length Number of bytes
+     * @return This view
+     */
+    ByteCharSequence reset(byte[] array, int offset, int length) {
+        this.array = array;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Point the view at a range of a buffer. Heap buffers are accessed through their backing array.
+     *
+     * @param buffer The backing buffer
+     * @param offset Absolute index of the first byte
+     * @param length Number of bytes
+     * @return This view
+     */
+    ByteCharSequence reset(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            return reset(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+        this.array = null;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Point the view at a sub range of another view
+     *
+     * @param source The view holding the bytes
+     * @param start Start index within the source view
+     * @param end End index (exclusive) within the source view
+     * @return This view
+     */
+    ByteCharSequence reset(ByteCharSequence source, int start, int end) {
+        this.array = source.array;
+        this.buffer = source.buffer;
+        this.offset = source.offset + start;
+        this.length = end - start;
+        return this;
+    }
+
+    /**
+     * Drop the reference to the bytes, so that an idle view does not keep them reachable
+     */
+    void clear() {
+        this.array = null;
+        this.buffer = null;
+        this.offset = 0;
+        this.length = 0;
+    }
+
+    /**
+     * @return A read-only buffer over the range of the view, sharing its bytes
+     */
+    ByteBuffer asByteBuffer() {
+        if (array != null) {
+            return ByteBuffer.wrap(array, offset, length).slice().asReadOnlyBuffer();
+        }
+        final ByteBuffer range = buffer.duplicate();
+        range.limit(offset + length).position(offset);
+        return range.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (array != null) {
+            return (char) (array[offset + index] & 0xFF);
+        }
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new ByteCharSequence().reset(this, start, end);
+    }
+
+    /**
+     * Decode a sub range of the view as UTF-8
+     *
+     * @param start Start index within the view
+     * @param end End index (exclusive) within the view
+     * @return The decoded String
+     */
+    String toString(int start, int end) {
+        if (array != null) {
+            return new String(array, offset + start, end - start, StandardCharsets.UTF_8);
+        }
+        return new String(copyBytes(start, end), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copy a sub range of the view
+     *
+     * @param start Start index within the view
+     * @param end End index (exclusive) within the view
+     * @return A new array holding the bytes of the range
+     */
+    byte[] copyBytes(int start, int end) {
+        if (array != null) {
+            return Arrays.copyOfRange(array, offset + start, offset + end);
+        }
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + start + i);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return toString(0, length);
+    }
+}
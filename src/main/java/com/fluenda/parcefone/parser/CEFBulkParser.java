@@ -0,0 +1,299 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CommonEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Parses large files of newline delimited CEF messages on several cores.
+ * <p>
+ * The file is memory mapped in segments of at most {@link #withSegmentSize(long) segmentSize} bytes, each segment
+ * ending on a line boundary. Segments are split into newline aligned chunks of roughly
+ * {@link #withChunkSize(int) chunkSize} bytes which are parsed in parallel on a {@link ForkJoinPool} by the
+ * {@link CEFParser} given at construction, each worker thread using its own parsing scratch state. Lines are parsed
+ * straight from the mapped memory, see {@link CEFParser#parse(ByteBuffer, boolean, boolean, Locale)}. The parser
+ * drops its views of a line when the call returns, so once a parse is over no worker keeps a segment reachable and
+ * the mappings can be released.
+ * <p>
+ * Events are either delivered in file order on the calling thread, or delivered as soon as they are parsed on the
+ * worker threads, in which case the consumer must be thread safe.
+ * <p>
+ * Every chunk is reported to Flight Recorder as a throughput sample while the
+ * <code>com.fluenda.parcefone.ParseThroughput</code> event is enabled.
+ * <p>
+ * Instances are immutable and may be shared by threads.
+ */
+public class CEFBulkParser {
+    /**
+     * Default size of the chunks parsed by a single task
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Default size of the regions of the file mapped at once
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 1024L * 1024 * 1024;
+
+    /**
+     * Receives the lines that could not be parsed, possibly from several threads at once. Lines rejected by the filter
+     * of the parser are not reported.
+     */
+    @FunctionalInterface
+    public interface FailureListener {
+        /**
+         * @param offset Byte offset of the line from the start of the file
+         * @param line Read-only view of the line, only valid for the duration of the call
+         */
+        void onFailure(long offset, ByteBuffer line);
+    }
+
+    private final CEFParser parser;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final long segmentSize;
+    private final FailureListener failureListener;
+
+    /**
+     * Creates a bulk parser running on the common pool
+     *
+     * @param parser Parser shared by every worker
+     */
+    public CEFBulkParser(CEFParser parser) {
+        this(parser, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, DEFAULT_SEGMENT_SIZE, null);
+    }
+
+    private CEFBulkParser(CEFParser parser, ForkJoinPool pool, int chunkSize, long segmentSize, FailureListener failureListener) {
+        this.parser = Objects.requireNonNull(parser);
+        this.pool = Objects.requireNonNull(pool);
+        this.chunkSize = chunkSize;
+        this.segmentSize = segmentSize;
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * @param pool The pool parsing the chunks
+     * @return A new bulk parser using the given pool
+     */
+    public CEFBulkParser withPool(ForkJoinPool pool) {
+        return new CEFBulkParser(parser, pool, chunkSize, segmentSize, failureListener);
+    }
+
+    /**
+     * @param chunkSize Approximate number of bytes parsed by a single task, chunks are extended to the next line boundary
+     * @return A new bulk parser using the given chunk size
+     */
+    public CEFBulkParser withChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize);
+        }
+        return new CEFBulkParser(parser, pool, chunkSize, segmentSize, failureListener);
+    }
+
+    /**
+     * @param segmentSize Maximum number of bytes mapped at once, must exceed the longest line of the files parsed
+     * @return A new bulk parser using the given segment size
+     */
+    public CEFBulkParser withSegmentSize(long segmentSize) {
+        if (segmentSize < 1 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+        }
+        return new CEFBulkParser(parser, pool, chunkSize, segmentSize, failureListener);
+    }
+
+    /**
+     * @param failureListener Listener notified of every line that cannot be parsed, or null
+     * @return A new bulk parser using the given listener
+     */
+    public CEFBulkParser withFailureListener(FailureListener failureListener) {
+        return new CEFBulkParser(parser, pool, chunkSize, segmentSize, failureListener);
+    }
+
+    /**
+     * Parse a file with validation disabled
+     *
+     * @param file File of UTF-8 encoded, newline delimited CEF messages
+     * @param ordered If true, events are delivered in file order on the calling thread. If false, events are delivered
+     *                on the worker threads as soon as they are parsed
+     * @param consumer Receives every event parsed successfully
+     * @return The number of events delivered
+     * @throws IOException when the file cannot be read or holds a line longer than the segment size
+     */
+    public long parse(Path file, boolean ordered, Consumer<? super CommonEvent> consumer) throws IOException {
+        return parse(file, ordered, consumer, false, false, Locale.ENGLISH);
+    }
+
+    /**
+     * Parse a file
+     *
+     * @param file File of UTF-8 encoded, newline delimited CEF messages
+     * @param ordered If true, events are delivered in file order on the calling thread. If false, events are delivered
+     *                on the worker threads as soon as they are parsed
+     * @param consumer Receives every event parsed successfully
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     * @return The number of events delivered
+     * @throws IOException when the file cannot be read or holds a line longer than the segment size
+     */
+    public long parse(Path file, boolean ordered, Consumer<? super CommonEvent> consumer,
+                      boolean validate, boolean allowNulls, Locale locale) throws IOException {
+        Objects.requireNonNull(consumer);
+        final LongAdder events = new LongAdder();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long position = 0;
+
+            while (position < size) {
+                final int length = (int) Math.min(segmentSize, size - position);
+                final MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int segmentEnd = length;
+                if (position + length < size) {
+                    // Leave the last partial line to the next segment
+                    segmentEnd = lastIndexOf(segment, length) + 1;
+                    if (segmentEnd == 0) {
+                        throw new IOException("Line at offset " + position + " exceeds the segment size of " + segmentSize + " bytes");
+                    }
+                }
+
+                parseSegment(segment, segmentEnd, position, ordered, consumer, events, validate, allowNulls, locale);
+                position += segmentEnd;
+            }
+        }
+        return events.sum();
+    }
+
+    private void parseSegment(ByteBuffer segment, int segmentEnd, long segmentOffset, boolean ordered, Consumer<? super CommonEvent> consumer,
+                              LongAdder events, boolean validate, boolean allowNulls, Locale locale) {
+        // Bound the chunks in flight so that ordered delivery does not buffer a whole segment of events
+        final int maxInFlight = pool.getParallelism() * 4;
+        final Deque<ForkJoinTask<List<CommonEvent>>> tasks = new ArrayDeque<>();
+
+        try {
+            int start = 0;
+            while (start < segmentEnd) {
+                int end = (int) Math.min((long) start + chunkSize, segmentEnd);
+                while (end < segmentEnd && segment.get(end - 1) != '\n') {
+                    end++;
+                }
+
+                final int chunkStart = start;
+                final int chunkEnd = end;
+                tasks.add(pool.submit(() -> {
+                    if (ordered) {
+                        final List<CommonEvent> parsed = new ArrayList<>();
+                        parseChunk(segment, chunkStart, chunkEnd, segmentOffset, parsed::add, validate, allowNulls, locale);
+                        return parsed;
+                    }
+                    events.add(parseChunk(segment, chunkStart, chunkEnd, segmentOffset, consumer, validate, allowNulls, locale));
+                    return Collections.emptyList();
+                }));
+                start = end;
+
+                if (tasks.size() >= maxInFlight) {
+                    deliver(tasks.poll(), consumer, events);
+                }
+            }
+
+            while (!tasks.isEmpty()) {
+                deliver(tasks.poll(), consumer, events);
+            }
+        } catch (RuntimeException | Error e) {
+            for (ForkJoinTask<List<CommonEvent>> task : tasks) {
+                task.cancel(false);
+            }
+            throw e;
+        }
+    }
+
+    private static void deliver(ForkJoinTask<List<CommonEvent>> task, Consumer<? super CommonEvent> consumer, LongAdder events) {
+        final List<CommonEvent> parsed = task.join();
+        for (CommonEvent event : parsed) {
+            consumer.accept(event);
+        }
+        events.add(parsed.size());
+    }
+
+    private int parseChunk(ByteBuffer segment, int start, int end, long segmentOffset, Consumer<? super CommonEvent> consumer,
+                           boolean validate, boolean allowNulls, Locale locale) {
+        final ByteBuffer line = segment.duplicate();
+        final Object throughput = FlightRecorderEvents.beginThroughput("CEFBulkParser");
+        int delivered = 0;
+        int messages = 0;
+        int rejected = 0;
+
+        int lineStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && segment.get(i) != '\n') {
+                continue;
+            }
+
+            int lineEnd = i;
+            if (lineEnd > lineStart && segment.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart) {
+                messages++;
+                line.limit(lineEnd).position(lineStart);
+                final CommonEvent event = parser.parse(line, validate, allowNulls, locale);
+                if (event != null) {
+                    consumer.accept(event);
+                    delivered++;
+                } else if (parser.isRejected()) {
+                    rejected++;
+                } else if (failureListener != null) {
+                    failureListener.onFailure(segmentOffset + lineStart, line.asReadOnlyBuffer());
+                }
+            }
+            lineStart = i + 1;
+        }
+
+        if (throughput != null) {
+            FlightRecorderEvents.commitThroughput(throughput, messages, delivered, messages - delivered - rejected, rejected, end - start);
+        }
+        return delivered;
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
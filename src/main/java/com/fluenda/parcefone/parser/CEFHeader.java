@@ -0,0 +1,210 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The seven header fields of a CEF message, as located by {@link CEFParser#parseHeader(byte[], int, int)} without
+ * scanning the extension.
+ * <p>
+ * The header references the bytes it was parsed from rather than copying them: fields are only decoded when read and
+ * {@link #fieldEquals(int, String)} compares ASCII values in place. The bytes must therefore be left untouched for as long as
+ * the header is used. Offsets are relative to the first byte of the message, so the extension can be forwarded as is
+ * from {@link #extensionOffset()}.
+ */
+public final class CEFHeader {
+    /**
+     * Index of the version field (e.g. <code>CEF:0</code>, including any syslog header preceding it)
+     */
+    public static final int VERSION = 0;
+    /**
+     * Index of the device vendor field
+     */
+    public static final int DEVICE_VENDOR = 1;
+    /**
+     * Index of the device product field
+     */
+    public static final int DEVICE_PRODUCT = 2;
+    /**
+     * Index of the device version field
+     */
+    public static final int DEVICE_VERSION = 3;
+    /**
+     * Index of the device event class ID field
+     */
+    public static final int DEVICE_EVENT_CLASS_ID = 4;
+    /**
+     * Index of the name field
+     */
+    public static final int NAME = 5;
+    /**
+     * Index of the severity field
+     */
+    public static final int SEVERITY = 6;
+
+    private final ByteCharSequence bytes;
+
+    // Start and end offsets of every field followed by the offset of the extension
+    private final int[] offsets;
+
+    CEFHeader(ByteCharSequence bytes, CEFTokenizer tokenizer) {
+        this.bytes = bytes;
+        this.offsets = new int[CEFTokenizer.HEADER_SIZE * 2 + 1];
+        for (int i = 0; i < CEFTokenizer.HEADER_SIZE; i++) {
+            offsets[i * 2] = tokenizer.headerStart(i);
+            offsets[i * 2 + 1] = tokenizer.headerEnd(i);
+        }
+        offsets[CEFTokenizer.HEADER_SIZE * 2] = tokenizer.extensionStart();
+    }
+
+    /**
+     * @return The CEF version, read from the last character of the version field, or -1 if it is not a digit
+     */
+    public int version() {
+        final int end = fieldEnd(VERSION);
+        return end > fieldStart(VERSION) ? Character.digit(bytes.charAt(end - 1), 10) : -1;
+    }
+
+    /**
+     * @return Device vendor
+     */
+    public String deviceVendor() {
+        return field(DEVICE_VENDOR);
+    }
+
+    /**
+     * @return Device product
+     */
+    public String deviceProduct() {
+        return field(DEVICE_PRODUCT);
+    }
+
+    /**
+     * @return Device version
+     */
+    public String deviceVersion() {
+        return field(DEVICE_VERSION);
+    }
+
+    /**
+     * @return Device event class ID
+     */
+    public String deviceEventClassId() {
+        return field(DEVICE_EVENT_CLASS_ID);
+    }
+
+    /**
+     * @return Event name
+     */
+    public String name() {
+        return field(NAME);
+    }
+
+    /**
+     * @return Event severity
+     */
+    public String severity() {
+        return field(SEVERITY);
+    }
+
+    /**
+     * @param index Index of the field, from {@link #VERSION} to {@link #SEVERITY}
+     * @return The raw field decoded as UTF-8, escape sequences included
+     */
+    public String field(int index) {
+        return bytes.toString(fieldStart(index), fieldEnd(index));
+    }
+
+    /**
+     * Compare a field to a value without decoding the field
+     *
+     * @param index Index of the field, from {@link #VERSION} to {@link #SEVERITY}
+     * @param value The expected raw value
+     * @return true if the field holds exactly the value
+     */
+    public boolean fieldEquals(int index, String value) {
+        final int start = fieldStart(index);
+        final int length = fieldEnd(index) - start;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return bytes.toString(start, start + length).equals(value);
+            }
+        }
+
+        // ASCII values match their bytes one to one
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param index Index of the field, from {@link #VERSION} to {@link #SEVERITY}
+     * @return Offset of the first byte of the field
+     */
+    public int fieldStart(int index) {
+        return offsets[index * 2];
+    }
+
+    /**
+     * @param index Index of the field, from {@link #VERSION} to {@link #SEVERITY}
+     * @return Offset following the last byte of the field, which is the offset of its delimiter
+     */
+    public int fieldEnd(int index) {
+        return offsets[index * 2 + 1];
+    }
+
+    /**
+     * @return Offset of the first byte of the extension, equal to {@link #length()} when the message has no extension
+     */
+    public int extensionOffset() {
+        return offsets[CEFTokenizer.HEADER_SIZE * 2];
+    }
+
+    /**
+     * @return Length of the whole message in bytes
+     */
+    public int length() {
+        return bytes.length();
+    }
+
+    /**
+     * @return A read-only buffer over the whole message, sharing the bytes the header was parsed from
+     */
+    public ByteBuffer message() {
+        return bytes.asByteBuffer();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("CEFHeader{");
+        for (int i = 0; i < CEFTokenizer.HEADER_SIZE; i++) {
+            if (i > 0) {
+                builder.append('|');
+            }
+            builder.append(field(i));
+        }
+        return builder.append('}').toString();
+    }
+}
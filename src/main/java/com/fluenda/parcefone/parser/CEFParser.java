@@ -20,103 +20,311 @@ package com.fluenda.parcefone.parser;
 import com.fluenda.parcefone.event.CEFHandlingException;
 import com.fluenda.parcefone.event.CefRev23;
 import com.fluenda.parcefone.event.CommonEvent;
+import com.fluenda.parcefone.event.CompiledValidator;
+import com.fluenda.parcefone.event.ErrorCode;
+import com.fluenda.parcefone.event.ExtensionProjection;
+import com.fluenda.parcefone.event.LazyCefRev23;
+import com.fluenda.parcefone.event.TimestampCache;
 
 import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
 import jakarta.validation.Validator;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A Common Event Format (CEF) parser used to convert String or byte array into a Map containing the <b>parsed and
  * validated</b> CEF fields
- * The parser does not make any assertion in regards to thread safety. Proceed with care.
+ * <p>
+ * Messages may be wrapped in a RFC 3164 or RFC 5424 syslog header (e.g. <code>&lt;134&gt;Oct 17 10:00:00 host CEF:0|...</code>),
+ * which is located without copying the message and whose fields are decoded on demand, see
+ * {@link CefRev23#getSyslogPriority()}, {@link CefRev23#getSyslogTimestamp()} and {@link CefRev23#getSyslogHostname()}.
+ * <p>
+ * Parsers emit Flight Recorder events that can be enabled in continuous recordings: messages parsed slower than a
+ * threshold (<code>com.fluenda.parcefone.SlowParse</code>), extension values that fail to convert
+ * (<code>com.fluenda.parcefone.ConversionFailure</code>), the compilation of the validator
+ * (<code>com.fluenda.parcefone.ValidatorBootstrap</code>) and throughput samples of batches
+ * (<code>com.fluenda.parcefone.ParseThroughput</code>). Until Flight Recorder is initialized, and on runtimes without
+ * the <code>jdk.jfr</code> module, they cost a single check per message.
+ * <p>
+ * Parsers are immutable and thread safe, a single instance may be shared by any number of threads. The scratch state
+ * used while parsing (tokenizer offsets and byte views) is confined to the calling thread and cleared when the call
+ * returns, so idle threads do not keep the last input reachable.
  */
 public class CEFParser {
     final static Logger logger = LoggerFactory.getLogger(CEFParser.class);
 
-    final static Pattern extensionPattern = Pattern.compile("(?<!\\\\)" + Pattern.quote("="));
+    // Scratch state is reused by every parser running on the same thread, parse calls never nest
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
-    Validator validator;
+    final Validator validator;
 
+    final boolean lazyDecoding;
+
+    final TimestampCache timestampCache;
+
+    final ExtensionProjection projection;
+
+    final EventFilter filter;
+
+    final ParserMetrics metrics;
+
+    // Cached from the metrics, so that untimed parsers never read the clock
+    final boolean timing;
+
+    final boolean countingCustomExtensions;
+
+    // Whether the parser looks extension keys up itself, for the projection or the metrics, rather than leaving it to the event
+    final boolean resolvingKeys;
 
     /**
-    *  Creates a CEFParser instance utilizing the default Bean Validator.
+    *  Creates a CEFParser instance validating events with the constraints of {@link CefRev23} compiled by
+    *  {@link CompiledValidator}, which does not involve a Bean Validation provider.
      */
     public CEFParser() {
-
+        this(null, false, null, null, null, null);
     }
 
     /**
      *  Creates a CEFParser instance utilizing thread-safe Beans Validator. The use of this constructor should result in significantly higher
      *  throughput when performing multiple instatiations of CEFParser.
+     *  <p>
+     *  Events are validated by the given validator rather than by {@link CompiledValidator}, e.g. to apply additional
+     *  constraints.
      * @param validator A JSR-303 complianceValidator such as Hibernate or Apache bVal
      */
     public CEFParser(Validator validator) {
+        this(validator, false, null, null, null, null);
+    }
+
+    private CEFParser(Validator validator, boolean lazyDecoding, TimestampCache timestampCache, ExtensionProjection projection,
+                      EventFilter filter, ParserMetrics metrics) {
         this.validator = validator;
+        this.lazyDecoding = lazyDecoding;
+        this.timestampCache = timestampCache;
+        this.projection = projection;
+        this.filter = filter;
+        this.metrics = metrics;
+        this.timing = metrics != null && metrics.isTimingEnabled();
+        this.countingCustomExtensions = metrics != null && metrics.isCountingCustomExtensions();
+        this.resolvingKeys = projection != null || countingCustomExtensions;
+    }
+
+    /**
+     * <p>
+     * Creates a copy of this parser that produces {@link LazyCefRev23} events, which keep the raw message and only
+     * convert an extension the first time it is read.
+     * <p>
+     * Without validation, values that fail to convert are reported when they are read rather than when parsing.
+     * With validation, every extension is converted before validating so failures are handled as usual.
+     * @param lazyDecoding true to defer the conversion of extensions until they are read
+     * @return A new parser using the same validator
+     */
+    public CEFParser withLazyDecoding(boolean lazyDecoding) {
+        return new CEFParser(validator, lazyDecoding, timestampCache, projection, filter, metrics);
+    }
+
+    /**
+     * <p>
+     * Creates a copy of this parser that looks up date extensions in a cache of recently parsed timestamps before
+     * parsing them. A cache may be shared by several parsers, including parsers running on different threads.
+     * <p>
+     * Use {@link TimestampCache#hits()} and {@link TimestampCache#misses()} to size the cache.
+     * @param timestampCache The cache to use, or null to parse every timestamp
+     * @return A new parser using the same validator
+     */
+    public CEFParser withTimestampCache(TimestampCache timestampCache) {
+        return new CEFParser(validator, lazyDecoding, timestampCache, projection, filter, metrics);
+    }
+
+    /**
+     * <p>
+     * Creates a copy of this parser that only keeps a subset of the extensions. Other extensions are skipped before
+     * being converted or stored, so they read as null and are missing from {@link CommonEvent#getExtension(boolean)}.
+     * Headers are always kept.
+     * @param keys The CEF Rev23 extension keys to keep, or null to keep every extension
+     * @param includeCustomExtensions Boolean defining if keys that are not part of the base CEF Rev23 specification are kept
+     * @return A new parser using the same validator
+     * @throws IllegalArgumentException when a key is not a CEF Rev23 extension
+     */
+    public CEFParser withProjection(Collection<String> keys, boolean includeCustomExtensions) {
+        return withProjection(keys == null ? null : ExtensionProjection.of(keys, includeCustomExtensions));
+    }
+
+    /**
+     * Creates a copy of this parser that only keeps the extensions selected by a projection
+     * @param projection The extensions to keep, or null to keep every extension
+     * @return A new parser using the same validator
+     */
+    public CEFParser withProjection(ExtensionProjection projection) {
+        return new CEFParser(validator, lazyDecoding, timestampCache, projection, filter, metrics);
+    }
+
+    /**
+     * <p>
+     * Creates a copy of this parser that rejects the messages not accepted by a filter. Filter conditions are checked
+     * against the raw header fields and extension values while the message is tokenized, so rejected messages never
+     * get converted into events.
+     * <p>
+     * Rejected messages are reported like malformed ones: parse methods return null and parseInto methods return
+     * false, without any logging.
+     * @param filter The filter, or null to accept every message
+     * @return A new parser using the same validator
+     */
+    public CEFParser withFilter(EventFilter filter) {
+        return new CEFParser(validator, lazyDecoding, timestampCache, projection, filter, metrics);
+    }
+
+    /**
+     * <p>
+     * Creates a copy of this parser that reports the outcome of every message to a metrics listener, e.g. a
+     * {@link DefaultParserMetrics} shared by every parser of an application.
+     * <p>
+     * Without metrics the parser does not pay for any of this. With metrics, the parser reads the clock between
+     * stages only if {@link ParserMetrics#isTimingEnabled()} and looks custom extensions up only if
+     * {@link ParserMetrics#isCountingCustomExtensions()}.
+     * @param metrics The listener, or null to disable metrics
+     * @return A new parser using the same validator
+     */
+    public CEFParser withMetrics(ParserMetrics metrics) {
+        return new CEFParser(validator, lazyDecoding, timestampCache, projection, filter, metrics);
     }
 
     /**
-     * Parse byte array after converting to UTF-8 string with validation disabled
+     * Parse UTF-8 encoded byte array with validation disabled
      *
      * @return CommonEvent
-     * @param cefByteArray byte [] containing the CEF message to be parsed - Array will be converted String using UTF-8
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
      */
     public CommonEvent parse(byte [] cefByteArray)  {
-        String cefString;
-        cefString = new String(cefByteArray, StandardCharsets.UTF_8);
-        return this.parse(cefString, false);
+        return this.parse(cefByteArray, false);
     }
 
     /**
-     * Parse byte array after converting to UTF-8 string with validation enabled or disabled
+     * Parse UTF-8 encoded byte array with validation enabled or disabled
      *
      * @return CommonEvent
-     * @param cefByteArray byte [] containing the CEF message to be parsed - Array will be converted String using UTF-8
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
      * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
      */
     public CommonEvent parse(byte [] cefByteArray, boolean validate)  {
-        String cefString;
-        cefString = new String(cefByteArray, StandardCharsets.UTF_8);
-        return this.parse(cefString, validate);
+        return this.parse(cefByteArray, validate, Locale.ENGLISH);
     }
 
     /**
-     * Parse byte array after converting to UTF-8 string using specified Locale and with validation enabled or disabled
+     * Parse UTF-8 encoded byte array using specified Locale and with validation enabled or disabled
      *
      * @return CommonEvent
-     * @param cefByteArray byte [] containing the CEF message to be parsed - Array will be converted String using UTF-8
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
      * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
      * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
      */
     public CommonEvent parse(byte [] cefByteArray, boolean validate, Locale locale)  {
-        String cefString;
-        cefString = new String(cefByteArray, StandardCharsets.UTF_8);
-        return this.parse(cefString, validate, locale);
+        return this.parse(cefByteArray, validate, false, locale);
     }
 
     /**
-     * Parse byte array after converting to UTF-8 string using specified Locale and with validation and allow nulsl enabled or disabled
+     * Parse UTF-8 encoded byte array using specified Locale and with validation and allow nulls enabled or disabled
      *
      * @return CommonEvent
-     * @param cefByteArray byte [] containing the CEF message to be parsed - Array will be converted String using UTF-8
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
      * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
      * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
      * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
      */
     public CommonEvent parse(byte [] cefByteArray, boolean validate, final boolean allowNulls, Locale locale)  {
-        String cefString;
-        cefString = new String(cefByteArray, StandardCharsets.UTF_8);
-        return this.parse(cefString, validate, allowNulls, locale);
+        return this.parse(cefByteArray, 0, cefByteArray.length, validate, allowNulls, locale);
     }
 
+    /**
+     * Parse a UTF-8 encoded slice of a byte array with validation disabled
+     *
+     * @return CommonEvent
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
+     * @param offset Offset of the first byte of the message
+     * @param length Length of the message in bytes
+     */
+    public CommonEvent parse(byte [] cefByteArray, int offset, int length)  {
+        return this.parse(cefByteArray, offset, length, false, false, Locale.ENGLISH);
+    }
+
+    /**
+     * <p>
+     * Parse a UTF-8 encoded slice of a byte array using specified Locale and with validation and allow nulls enabled or
+     * disabled.
+     * <p>
+     * The message is tokenized directly on the bytes. Strings are only built for headers and for extensions stored as
+     * text, and numbers, addresses and dates of pure ASCII messages are converted without decoding them first. The
+     * array is not retained once the call returns, unless referenced by the event itself.
+     *
+     * @return CommonEvent
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
+     * @param offset Offset of the first byte of the message
+     * @param length Length of the message in bytes
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public CommonEvent parse(byte [] cefByteArray, int offset, int length, boolean validate, final boolean allowNulls, Locale locale)  {
+        Objects.checkFromIndexSize(offset, length, cefByteArray.length);
+        if (lazyDecoding) {
+            // Lazy events outlive the call and keep their own copy of the message
+            return this.parseDecoded(SCRATCH.get(), new String(cefByteArray, offset, length, StandardCharsets.UTF_8), validate, allowNulls, locale);
+        }
+        final Scratch scratch = SCRATCH.get();
+        return this.parseMessage(scratch, scratch.bytes.reset(cefByteArray, offset, length), validate, allowNulls, locale);
+    }
+
+    /**
+     * Parse the UTF-8 encoded bytes between the position and the limit of a buffer with validation disabled
+     *
+     * @return CommonEvent
+     * @param cefByteBuffer Heap or direct buffer containing the CEF message to be parsed - Buffer is read as UTF-8
+     */
+    public CommonEvent parse(ByteBuffer cefByteBuffer)  {
+        return this.parse(cefByteBuffer, false, false, Locale.ENGLISH);
+    }
+
+    /**
+     * <p>
+     * Parse the UTF-8 encoded bytes between the position and the limit of a buffer using specified Locale and with
+     * validation and allow nulls enabled or disabled.
+     * <p>
+     * Both heap and direct buffers are read in place and the position of the buffer is left untouched. The buffer is
+     * not retained once the call returns, so it may be released or unmapped.
+     *
+     * @return CommonEvent
+     * @param cefByteBuffer Heap or direct buffer containing the CEF message to be parsed - Buffer is read as UTF-8
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public CommonEvent parse(ByteBuffer cefByteBuffer, boolean validate, final boolean allowNulls, Locale locale)  {
+        final int position = cefByteBuffer.position();
+        final Scratch scratch = SCRATCH.get();
+        final ByteCharSequence bytes = scratch.bytes.reset(cefByteBuffer, position, cefByteBuffer.limit() - position);
+        if (lazyDecoding) {
+            // Lazy events outlive the call and keep their own copy of the message
+            return this.parseDecoded(scratch, bytes.toString(), validate, allowNulls, locale);
+        }
+        return this.parseMessage(scratch, bytes, validate, allowNulls, locale);
+    }
 
     /**
      * <p>
@@ -165,109 +373,721 @@ public class CEFParser {
      * @return CommonEvent
      */
     public CommonEvent parse(String cefString, final boolean validate, final boolean allowNulls, Locale locale)  {
+        return parseMessage(SCRATCH.get(), cefString, validate, allowNulls, locale);
+    }
+
+    /**
+     * Parse a UTF-8 encoded byte array into an existing event with validation disabled, see
+     * {@link #parseInto(byte[], int, int, CefRev23, boolean, boolean)}
+     *
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
+     * @param target The event to populate
+     * @return true if the message was parsed, false if it could not be parsed
+     */
+    public boolean parseInto(byte [] cefByteArray, CefRev23 target)  {
+        return this.parseInto(cefByteArray, 0, cefByteArray.length, target, false, false);
+    }
 
-        int cefHeaderSize = 7;
-        CommonEvent cefEvent = new CefRev23(locale);
+    /**
+     * <p>
+     * Parse a UTF-8 encoded slice of a byte array into an existing event, so that callers can recycle events instead
+     * of allocating one per message.
+     * <p>
+     * The target is {@link CefRev23#reset() reset} first and dates are parsed with the locale and timestamp cache of
+     * the target. Extensions are always converted eagerly. When parsing fails the target is left partially populated
+     * and should not be read before it is reused.
+     *
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
+     * @param offset Offset of the first byte of the message
+     * @param length Length of the message in bytes
+     * @param target The event to populate
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @return true if the message was parsed (and validated), false if it could not be parsed
+     */
+    public boolean parseInto(byte [] cefByteArray, int offset, int length, CefRev23 target, boolean validate, final boolean allowNulls)  {
+        Objects.checkFromIndexSize(offset, length, cefByteArray.length);
+        final Scratch scratch = SCRATCH.get();
+        return this.parseInto(scratch, scratch.bytes.reset(cefByteArray, offset, length), target, validate, allowNulls);
+    }
 
-        // Note how split number of splits is cefHeaderSize + 1. This is because the final split
-        // should be the body of the CEF message
-        // Compiled pattern is equivalent to "(?<!\\\\)" + Pattern.quote("|")
-        final String[] extractedMessage = cefString.split("(?<!\\\\)" + Pattern.quote("|"), cefHeaderSize + 1);
+    /**
+     * Parse the UTF-8 encoded bytes between the position and the limit of a buffer into an existing event, see
+     * {@link #parseInto(byte[], int, int, CefRev23, boolean, boolean)}
+     *
+     * @param cefByteBuffer Heap or direct buffer containing the CEF message to be parsed - Buffer is read as UTF-8
+     * @param target The event to populate
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @return true if the message was parsed (and validated), false if it could not be parsed
+     */
+    public boolean parseInto(ByteBuffer cefByteBuffer, CefRev23 target, boolean validate, final boolean allowNulls)  {
+        final int position = cefByteBuffer.position();
+        final Scratch scratch = SCRATCH.get();
+        return this.parseInto(scratch, scratch.bytes.reset(cefByteBuffer, position, cefByteBuffer.limit() - position), target, validate, allowNulls);
+    }
 
-        // CEF header misses values
-        if (extractedMessage.length < cefHeaderSize) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("CEF message failed validation");
+    /**
+     * Parse a UTF-8 encoded byte array with validation disabled, reporting failures as a result rather than null, see
+     * {@link #tryParse(byte[], int, int, boolean, boolean, Locale)}
+     *
+     * @return The event, or the reason why the message could not be parsed
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
+     */
+    public ParseResult tryParse(byte [] cefByteArray)  {
+        return this.tryParse(cefByteArray, 0, cefByteArray.length, false, false, Locale.ENGLISH);
+    }
+
+    /**
+     * <p>
+     * Parse a UTF-8 encoded slice of a byte array like {@link #parse(byte[], int, int, boolean, boolean, Locale)},
+     * reporting failures as a result rather than null.
+     * <p>
+     * Failed results hold an {@link ErrorCode} and the byte offset of the offending header field or extension value
+     * from the start of the message. Nothing is logged, and conversion failures do not record stack traces, so
+     * malformed messages cost little more than valid ones.
+     *
+     * @return The event, or the reason why the message could not be parsed
+     * @param cefByteArray byte [] containing the CEF message to be parsed - Array is read as UTF-8
+     * @param offset Offset of the first byte of the message
+     * @param length Length of the message in bytes
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public ParseResult tryParse(byte [] cefByteArray, int offset, int length, boolean validate, final boolean allowNulls, Locale locale)  {
+        return result(this.parse(cefByteArray, offset, length, validate, allowNulls, locale));
+    }
+
+    /**
+     * Parse the UTF-8 encoded bytes between the position and the limit of a buffer like
+     * {@link #parse(ByteBuffer, boolean, boolean, Locale)}, reporting failures as a result rather than null. Offsets
+     * are relative to the position of the buffer.
+     *
+     * @return The event, or the reason why the message could not be parsed
+     * @param cefByteBuffer Heap or direct buffer containing the CEF message to be parsed - Buffer is read as UTF-8
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public ParseResult tryParse(ByteBuffer cefByteBuffer, boolean validate, final boolean allowNulls, Locale locale)  {
+        return result(this.parse(cefByteBuffer, validate, allowNulls, locale));
+    }
+
+    /**
+     * Parse a String like {@link #parse(String, boolean, boolean, Locale)}, reporting failures as a result rather than
+     * null. Offsets count chars from the start of the String.
+     *
+     * @return The event, or the reason why the message could not be parsed
+     * @param cefString String containing the CEF message to be parsed
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public ParseResult tryParse(String cefString, final boolean validate, final boolean allowNulls, Locale locale)  {
+        return result(this.parse(cefString, validate, allowNulls, locale));
+    }
+
+    private static ParseResult result(CommonEvent event) {
+        if (event != null) {
+            return ParseResult.success(event);
+        }
+        final Scratch scratch = SCRATCH.get();
+        return ParseResult.failure(scratch.error, scratch.errorOffset, scratch.errorField, scratch.errorMessage);
+    }
+
+    /**
+     * Locate the header fields of a UTF-8 encoded byte array, see {@link #parseHeader(byte[], int, int)}
+     *
+     * @return The header or null if the message does not hold a complete header
+     * @param cefByteArray byte [] containing the CEF message
+     */
+    public CEFHeader parseHeader(byte [] cefByteArray)  {
+        return this.parseHeader(cefByteArray, 0, cefByteArray.length);
+    }
+
+    /**
+     * <p>
+     * Locate the header fields of a UTF-8 encoded slice of a byte array, stopping at the seventh unescaped delimiter so
+     * that the extension is never scanned. The returned header references the array instead of copying it.
+     * <p>
+     * Header conditions of the filter, if any, are applied and extension conditions are ignored.
+     *
+     * @return The header or null if the message does not hold a complete header or is rejected by the filter
+     * @param cefByteArray byte [] containing the CEF message
+     * @param offset Offset of the first byte of the message
+     * @param length Length of the message in bytes
+     */
+    public CEFHeader parseHeader(byte [] cefByteArray, int offset, int length)  {
+        Objects.checkFromIndexSize(offset, length, cefByteArray.length);
+        return this.parseHeader(new ByteCharSequence().reset(cefByteArray, offset, length));
+    }
+
+    /**
+     * Locate the header fields of the UTF-8 encoded bytes between the position and the limit of a buffer, see
+     * {@link #parseHeader(byte[], int, int)}. The position of the buffer is left untouched.
+     *
+     * @return The header or null if the message does not hold a complete header or is rejected by the filter
+     * @param cefByteBuffer Heap or direct buffer containing the CEF message
+     */
+    public CEFHeader parseHeader(ByteBuffer cefByteBuffer)  {
+        final int position = cefByteBuffer.position();
+        return this.parseHeader(new ByteCharSequence().reset(cefByteBuffer, position, cefByteBuffer.limit() - position));
+    }
+
+    private CEFHeader parseHeader(ByteCharSequence bytes)  {
+        final Scratch scratch = SCRATCH.get();
+        final CEFTokenizer tokenizer = scratch.tokenizer;
+        scratch.error = null;
+
+        try {
+            if (!tokenizer.tokenizeHeader(bytes, 0, bytes.length())) {
+                scratch.fail(ErrorCode.BAD_HEADER, -1, null, "CEF header misses fields");
+                return null;
+            }
+            if (filter != null && !filter.acceptsHeader(tokenizer, scratch.valueView)) {
+                scratch.fail(ErrorCode.REJECTED, -1, null, "Rejected by the header conditions of the filter");
+                return null;
             }
+            return new CEFHeader(bytes, tokenizer);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    /**
+     * Parse a batch of UTF-8 encoded byte arrays in parallel on the common {@link ForkJoinPool} with validation disabled
+     *
+     * @param cefByteArrays The CEF messages to be parsed - Arrays are read as UTF-8
+     * @return The events in input order, with null at the index of every message that could not be parsed
+     */
+    public List<CommonEvent> parseAll(List<byte[]> cefByteArrays) {
+        return parseAll(cefByteArrays, false, false, Locale.ENGLISH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * <p>
+     * Parse a batch of UTF-8 encoded byte arrays in parallel.
+     * <p>
+     * The batch is split into a few contiguous slices per worker, submitted to the executor. The calling thread blocks
+     * until the whole batch has been parsed.
+     *
+     * @param cefByteArrays The CEF messages to be parsed - Arrays are read as UTF-8
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     * @param executor The executor running the slices, e.g. a {@link ForkJoinPool}
+     * @return The events in input order, with null at the index of every message that could not be parsed
+     */
+    public List<CommonEvent> parseAll(List<byte[]> cefByteArrays, final boolean validate, final boolean allowNulls, Locale locale, Executor executor) {
+        final byte[][] messages = cefByteArrays.toArray(new byte[0][]);
+        return parseAll(new CommonEvent[messages.length], executor, i -> parse(messages[i], validate, allowNulls, locale), i -> messages[i].length);
+    }
+
+    /**
+     * Parse a batch of UTF-8 encoded byte arrays in parallel on the common {@link ForkJoinPool} with validation
+     * disabled, reporting the outcome of every message, see {@link #tryParseAll(List, boolean, boolean, Locale, Executor)}
+     *
+     * @param cefByteArrays The CEF messages to be parsed - Arrays are read as UTF-8
+     * @return The result of every message, in input order
+     */
+    public List<ParseResult> tryParseAll(List<byte[]> cefByteArrays) {
+        return tryParseAll(cefByteArrays, false, false, Locale.ENGLISH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse a batch of UTF-8 encoded byte arrays in parallel like
+     * {@link #parseAll(List, boolean, boolean, Locale, Executor)}, reporting the outcome of every message so that
+     * malformed messages, constraint violations and messages rejected by the filter can be told apart, see
+     * {@link #tryParse(byte[], int, int, boolean, boolean, Locale)}
+     *
+     * @param cefByteArrays The CEF messages to be parsed - Arrays are read as UTF-8
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     * @param executor The executor running the slices, e.g. a {@link ForkJoinPool}
+     * @return The result of every message, in input order
+     */
+    public List<ParseResult> tryParseAll(List<byte[]> cefByteArrays, final boolean validate, final boolean allowNulls, Locale locale, Executor executor) {
+        final byte[][] messages = cefByteArrays.toArray(new byte[0][]);
+        return parseAll(new ParseResult[messages.length], executor,
+                i -> tryParse(messages[i], 0, messages[i].length, validate, allowNulls, locale), i -> messages[i].length);
+    }
+
+    /**
+     * Parse a batch of CEF formatted Strings in parallel on the common {@link ForkJoinPool} with validation disabled
+     *
+     * @param cefStrings The CEF messages to be parsed
+     * @return The events in iteration order, with null at the index of every message that could not be parsed
+     */
+    public List<CommonEvent> parseAll(Collection<String> cefStrings) {
+        return parseAll(cefStrings, false, false, Locale.ENGLISH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse a batch of CEF formatted Strings in parallel, see {@link #parseAll(List, boolean, boolean, Locale, Executor)}
+     *
+     * @param cefStrings The CEF messages to be parsed
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     * @param executor The executor running the slices, e.g. a {@link ForkJoinPool}
+     * @return The events in iteration order, with null at the index of every message that could not be parsed
+     */
+    public List<CommonEvent> parseAll(Collection<String> cefStrings, final boolean validate, final boolean allowNulls, Locale locale, Executor executor) {
+        final String[] messages = cefStrings.toArray(new String[0]);
+        return parseAll(new CommonEvent[messages.length], executor, i -> parse(messages[i], validate, allowNulls, locale), i -> messages[i].length());
+    }
+
+    /**
+     * Parse a batch of CEF formatted Strings in parallel, reporting the outcome of every message, see
+     * {@link #tryParseAll(List, boolean, boolean, Locale, Executor)}
+     *
+     * @param cefStrings The CEF messages to be parsed
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     * @param executor The executor running the slices, e.g. a {@link ForkJoinPool}
+     * @return The result of every message, in iteration order
+     */
+    public List<ParseResult> tryParseAll(Collection<String> cefStrings, final boolean validate, final boolean allowNulls, Locale locale, Executor executor) {
+        final String[] messages = cefStrings.toArray(new String[0]);
+        return parseAll(new ParseResult[messages.length], executor,
+                i -> tryParse(messages[i], validate, allowNulls, locale), i -> messages[i].length());
+    }
+
+    // Fill the results in parallel, parseOne being called on the parsing thread for every index
+    private <T> List<T> parseAll(T[] results, Executor executor, IntFunction<T> parseOne, IntUnaryOperator lengthOf) {
+        final int count = results.length;
+        if (count == 0) {
+            return Arrays.asList(results);
+        }
+        final Object throughput = FlightRecorderEvents.beginThroughput("parseAll");
+        final LongAdder parsed = throughput == null ? null : new LongAdder();
+        final LongAdder rejected = throughput == null ? null : new LongAdder();
+
+        final int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+
+        // A few slices per worker, so that slower slices do not leave the other workers idle
+        final int sliceSize = Math.max(1, (count + parallelism * 4 - 1) / (parallelism * 4));
+        final List<CompletableFuture<Void>> slices = new ArrayList<>();
+        for (int start = 0; start < count; start += sliceSize) {
+            final int sliceStart = start;
+            final int sliceEnd = Math.min(count, start + sliceSize);
+            slices.add(CompletableFuture.runAsync(() -> {
+                for (int i = sliceStart; i < sliceEnd; i++) {
+                    results[i] = parseOne.apply(i);
+                    // The outcome is only known on the parsing thread
+                    if (throughput != null) {
+                        final ErrorCode error = SCRATCH.get().error;
+                        if (error == null) {
+                            parsed.increment();
+                        } else if (error == ErrorCode.REJECTED) {
+                            rejected.increment();
+                        }
+                    }
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(slices.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        if (throughput != null) {
+            long size = 0;
+            for (int i = 0; i < count; i++) {
+                size += lengthOf.applyAsInt(i);
+            }
+            FlightRecorderEvents.commitThroughput(throughput, count, parsed.sum(), count - parsed.sum() - rejected.sum(), rejected.sum(), size);
+        }
+        return Arrays.asList(results);
+    }
+
+    private CommonEvent parseMessage(Scratch scratch, CharSequence cefMessage, final boolean validate, final boolean allowNulls, Locale locale)  {
+        try {
+            return parseEvent(scratch, cefMessage, validate, allowNulls, locale);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    private CommonEvent parseEvent(Scratch scratch, CharSequence cefMessage, final boolean validate, final boolean allowNulls, Locale locale)  {
+        final Object slowParse = FlightRecorderEvents.beginSlowParse();
+
+        final int version = tokenize(scratch, cefMessage);
+        if (version < 0) {
+            report(scratch, false);
+            record(slowParse, scratch, cefMessage, lazyDecoding, validate);
             return null;
         }
 
-        final HashMap<String, Object> headers = new HashMap<>();
-        headers.put("version", Integer.valueOf(extractedMessage[0].substring(extractedMessage[0].length() - 1)));
-        headers.put("deviceVendor", extractedMessage[1]);
-        headers.put("deviceProduct", extractedMessage[2]);
-        headers.put("deviceVersion", extractedMessage[3]);
-        headers.put("deviceEventClassId", extractedMessage[4]);
-        headers.put("name", extractedMessage[5]);
-        headers.put("severity", extractedMessage[6]);
+        final CefRev23 cefEvent = lazyDecoding
+                ? new LazyCefRev23(locale, timestampCache, cefMessage.toString(), allowNulls)
+                : new CefRev23(locale, timestampCache);
 
-        final HashMap<String, String> extensions = new HashMap<>();
+        final boolean parsed = populateEvent(scratch, cefMessage, cefEvent, version, lazyDecoding, validate, allowNulls);
+        report(scratch, parsed);
+        record(slowParse, scratch, cefMessage, lazyDecoding, validate);
+        return parsed ? cefEvent : null;
+    }
 
+    // Parse a message decoded from bytes, reporting failures at their byte offset like messages parsed in place
+    private CommonEvent parseDecoded(Scratch scratch, String cefMessage, final boolean validate, final boolean allowNulls, Locale locale)  {
+        final CommonEvent event = parseMessage(scratch, cefMessage, validate, allowNulls, locale);
+        if (event == null && scratch.errorOffset > 0) {
+            scratch.errorOffset = utf8Length(cefMessage, scratch.errorOffset);
+        }
+        return event;
+    }
 
-        final String ext = extractedMessage[7];
+    private static int utf8Length(String text, int end) {
+        int length = 0;
+        for (int i = 0; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
 
-        // Compiled pattern is equivalent to String extensionRegex = "(?<!\\\\)" + Pattern.quote("=");
-        final Matcher matcher = extensionPattern.matcher(ext);
-        final Matcher valueMatcher = extensionPattern.matcher(ext);
+    private boolean parseInto(Scratch scratch, CharSequence cefMessage, CefRev23 target, final boolean validate, final boolean allowNulls)  {
+        try {
+            return populateInto(scratch, cefMessage, target, validate, allowNulls);
+        } finally {
+            scratch.release();
+        }
+    }
 
-        int index = 0;
+    private boolean populateInto(Scratch scratch, CharSequence cefMessage, CefRev23 target, final boolean validate, final boolean allowNulls)  {
+        final Object slowParse = FlightRecorderEvents.beginSlowParse();
+        target.reset();
 
-        while (matcher.find()) {
-            String key = ext.substring(index, matcher.end() - 1).replace(" ", "");
+        final int version = tokenize(scratch, cefMessage);
+        if (version < 0) {
+            report(scratch, false);
+            record(slowParse, scratch, cefMessage, false, validate);
+            return false;
+        }
+        final boolean parsed = populateEvent(scratch, cefMessage, target, version, false, validate, allowNulls);
+        report(scratch, parsed);
+        record(slowParse, scratch, cefMessage, false, validate);
+        return parsed;
+    }
 
-            // Capture the start of the value (first char after delimiter match);
-            int valueStart = matcher.end();
+    // Commit the slow parse event, if Flight Recorder is recording it, when the message exceeded its threshold
+    private static void record(Object slowParse, Scratch scratch, CharSequence cefMessage, final boolean lazily, final boolean validate) {
+        if (slowParse != null) {
+            FlightRecorderEvents.commitSlowParse(slowParse, scratch.deviceVendor, cefMessage.length(), scratch.error, scratch.errorField, validate, lazily);
+        }
+    }
 
-            // Handle all but last extension
-            if (valueMatcher.find(valueStart)) {
-                // FInd the next match to determine the maximum length of the value
-                int nextMatch = valueMatcher.start();
-                // Find the last space prior to next match (i.e. last char before next key)
-                int lastSpace = ext.lastIndexOf(" ", nextMatch);
+    // Report the outcome of the last message to the metrics, with the stage timings marked in the scratch state
+    private void report(Scratch scratch, boolean parsed) {
+        if (metrics == null) {
+            return;
+        }
 
-                // Copy the value between the value start (i.e. this match)
-                // and the lastSpace (i.e. last char prior to next key)
-                String value = ext.substring(valueStart, lastSpace);
+        long tokenizeNanos = 0;
+        long convertNanos = 0;
+        long validateNanos = 0;
+        if (timing) {
+            final long now = System.nanoTime();
+            if (scratch.stage == Scratch.TOKENIZE) {
+                tokenizeNanos = now - scratch.started;
+            } else {
+                tokenizeNanos = scratch.tokenized - scratch.started;
+                if (scratch.stage == Scratch.CONVERT) {
+                    convertNanos = now - scratch.tokenized;
+                } else {
+                    convertNanos = scratch.converted - scratch.tokenized;
+                    validateNanos = now - scratch.converted;
+                }
+            }
+        }
 
-                // Put to map.
-                extensions.put(key, value);
+        if (parsed) {
+            metrics.parsed(scratch.deviceVendor, tokenizeNanos, convertNanos, validateNanos);
+        } else if (scratch.error == ErrorCode.REJECTED) {
+            metrics.rejected(tokenizeNanos);
+        } else {
+            metrics.failed(scratch.error, scratch.deviceVendor, scratch.errorField, tokenizeNanos, convertNanos, validateNanos);
+        }
+    }
 
-                // Update index to the last character before the next key
-                index = lastSpace + 1;
+    // Returns the CEF version, or -1 if the message does not hold a complete header or is rejected by the filter
+    private int tokenize(Scratch scratch, CharSequence cefMessage) {
+        final CEFTokenizer tokenizer = scratch.tokenizer;
+        scratch.error = null;
+        scratch.deviceVendor = null;
+        scratch.stage = Scratch.TOKENIZE;
+        if (timing) {
+            scratch.started = System.nanoTime();
+        }
 
-                // Treat the last KV (if match is true)
-            } else if (valueMatcher.find(valueStart - 1)) {
-                // We are handling the final character, value end if newline at the
-                // end of string
-                int valueEnd = ext.length();
+        // CEF header misses values
+        if (!tokenizer.tokenizeHeader(cefMessage, 0, cefMessage.length())) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("CEF message failed validation");
+            }
+            scratch.fail(ErrorCode.BAD_HEADER, -1, null, "CEF header misses fields");
+            return -1;
+        }
 
-                String value = ext.substring(valueStart, valueEnd);
-                extensions.put(key, value);
-                // Update the index to the end of the string so no matches are possible
-                index = valueEnd;
+        // Header conditions are checked before the extension is scanned
+        if (filter != null && !filter.acceptsHeader(tokenizer, scratch.valueView)) {
+            scratch.fail(ErrorCode.REJECTED, -1, null, "Rejected by the header conditions of the filter");
+            return -1;
+        }
+
+        // The version is the last character of the first header field (e.g. "CEF:0")
+        final int versionEnd = tokenizer.headerEnd(0);
+        final int version = versionEnd > tokenizer.headerStart(0) ? Character.digit(cefMessage.charAt(versionEnd - 1), 10) : -1;
+        if (version < 0) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("CEF message failed validation");
             }
+            scratch.fail(ErrorCode.BAD_HEADER, tokenizer.signatureStart(), "version", "Invalid CEF version");
+            return -1;
+        }
+
+        tokenizer.tokenizeExtension();
+        if (filter != null && filter.hasExtensionConditions() && !filter.acceptsExtension(tokenizer, scratch.valueView)) {
+            scratch.fail(ErrorCode.REJECTED, -1, null, "Rejected by the extension conditions of the filter");
+            return -1;
         }
 
+        scratch.stage = Scratch.CONVERT;
+        if (timing) {
+            scratch.tokenized = System.nanoTime();
+        }
+        return version;
+    }
+
+    /**
+     * @return true if the last message parsed by the calling thread was rejected by the filter rather than malformed
+     */
+    boolean isRejected() {
+        return SCRATCH.get().error == ErrorCode.REJECTED;
+    }
+
+    private boolean populateEvent(Scratch scratch, CharSequence cefMessage, CefRev23 cefEvent, int version,
+                                  final boolean lazily, final boolean validate, final boolean allowNulls)  {
+        final CEFTokenizer tokenizer = scratch.tokenizer;
+
         try {
-            cefEvent.setHeader(headers);
-            cefEvent.setExtension(extensions, allowNulls);
+            final String deviceVendor = tokenizer.header(1);
+            scratch.deviceVendor = deviceVendor;
+            cefEvent.setHeader(version, deviceVendor, tokenizer.header(2), tokenizer.header(3),
+                    tokenizer.header(4), tokenizer.header(5), tokenizer.header(6));
+            if (tokenizer.signatureStart() > tokenizer.headerStart(0)) {
+                setSyslogHeader(tokenizer, cefEvent);
+            }
 
+            if (lazily) {
+                populateLazily(tokenizer, (LazyCefRev23) cefEvent, validate, allowNulls);
+            } else {
+                populate(scratch, cefEvent, cefMessage, allowNulls);
+            }
         } catch (CEFHandlingException e) {
-            logger.error(e.toString());
-            return null;
+            if (logger.isDebugEnabled()) {
+                logger.debug("CEF message failed conversion: " + e.getMessage());
+            }
+            scratch.fail(e.getErrorCode(), valueOffset(tokenizer, e.getField()), e.getField(), e.getMessage());
+            return false;
         }
 
+        // Without validation the conversion stage lasts until the outcome is reported
         if (validate) {
-            if (validator == null) {
-                // Since the validator wasn't initiated previously, create a new one;
-                this.validator = Validation.buildDefaultValidatorFactory().getValidator();
+            scratch.stage = Scratch.VALIDATE;
+            if (timing) {
+                scratch.converted = System.nanoTime();
             }
+        }
 
-            Set<ConstraintViolation<CommonEvent>> validationResult = validator.validate(cefEvent);
+        if (validate && validator == null) {
+            final CompiledValidator.Violation violation = CompiledValidator.get().validate(cefEvent);
+            if (violation != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("CEF message failed validation: " + violation);
+                }
+                scratch.fail(ErrorCode.CONSTRAINT_VIOLATION, valueOffset(tokenizer, violation.field()), violation.field(), violation.message());
+                return false;
+            }
+        } else if (validate) {
+            Set<ConstraintViolation<CefRev23>> validationResult = validator.validate(cefEvent);
 
             if (!validationResult.isEmpty()) {
                 if (logger.isDebugEnabled()) {
-                    for(ConstraintViolation<CommonEvent> v : validationResult) {
+                    for(ConstraintViolation<CefRev23> v : validationResult) {
                         logger.debug("CEF message failed validation: " + v.getMessage());
                     }
                 }
-                return null;
+                final ConstraintViolation<CefRev23> first = validationResult.iterator().next();
+                final String field = first.getPropertyPath().toString();
+                scratch.fail(ErrorCode.CONSTRAINT_VIOLATION, valueOffset(tokenizer, field), field, first.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Offset of the value of a header field or extension, the last occurrence winning as it does when populating
+    private static int valueOffset(CEFTokenizer tokenizer, String field) {
+        if (field == null) {
+            return -1;
+        }
+        final int header = CommonEvent.HEADER_KEYS.indexOf(field);
+        if (header >= 0) {
+            return header == 0 ? tokenizer.signatureStart() : tokenizer.headerStart(header);
+        }
+        for (int i = tokenizer.extensionCount() - 1; i >= 0; i--) {
+            if (field.equals(tokenizer.key(i))) {
+                return tokenizer.valueStart(i);
+            }
+        }
+        return -1;
+    }
+
+    private void populate(Scratch scratch, CefRev23 cefEvent, CharSequence cefMessage, final boolean allowNulls) throws CEFHandlingException {
+        final CEFTokenizer tokenizer = scratch.tokenizer;
+        final ByteCharSequence bytes = scratch.bytes;
+        final ByteCharSequence keyView = scratch.keyView;
+        final ByteCharSequence valueView = scratch.valueView;
+
+        // Keys and values of pure ASCII byte messages are handed over as views, everything else is decoded
+        final boolean useViews = cefMessage == bytes && tokenizer.isAscii();
+
+        for (int i = 0; i < tokenizer.extensionCount(); i++) {
+            // Each key is looked up once, for the projection, the metrics and the event alike
+            final int ordinal = resolvingKeys ? extensionOrdinal(tokenizer, i) : -1;
+            if (projection != null && !projection.includes(ordinal)) {
+                continue;
+            }
+            if (countingCustomExtensions && ordinal < 0) {
+                metrics.customExtension(tokenizer.key(i));
+            }
+            final CharSequence key = useViews && tokenizer.isPlainKey(i)
+                    ? keyView.reset(bytes, tokenizer.keyStart(i), tokenizer.keyEnd(i))
+                    : tokenizer.key(i);
+            final CharSequence value = useViews
+                    ? valueView.reset(bytes, tokenizer.valueStart(i), tokenizer.valueEnd(i))
+                    : tokenizer.value(i);
+            if (resolvingKeys) {
+                cefEvent.setExtension(ordinal, key, value, allowNulls);
+            } else {
+                cefEvent.setExtension(key, value, allowNulls);
+            }
+        }
+    }
+
+    private void populateLazily(CEFTokenizer tokenizer, LazyCefRev23 cefEvent, final boolean validate, final boolean allowNulls) throws CEFHandlingException {
+        for (int i = 0; i < tokenizer.extensionCount(); i++) {
+            final int ordinal = resolvingKeys ? extensionOrdinal(tokenizer, i) : -1;
+            if (projection != null && !projection.includes(ordinal)) {
+                continue;
+            }
+            if (countingCustomExtensions && ordinal < 0) {
+                metrics.customExtension(tokenizer.key(i));
+            }
+            if (tokenizer.isPlainKey(i)) {
+                cefEvent.addExtension(tokenizer.keyStart(i), tokenizer.keyEnd(i), tokenizer.valueStart(i), tokenizer.valueEnd(i));
+            } else if (resolvingKeys) {
+                // Keys that need cleaning up do not map to a region of the message
+                cefEvent.setExtension(ordinal, tokenizer.key(i), tokenizer.value(i), allowNulls);
             } else {
-                return cefEvent;
+                cefEvent.setExtension(tokenizer.key(i), tokenizer.value(i), allowNulls);
             }
+        }
+
+        // Validation needs every value, so conversion errors surface exactly as they would when parsing eagerly
+        if (validate) {
+            cefEvent.decodeAll();
+        }
+    }
+
+    private static void setSyslogHeader(CEFTokenizer tokenizer, CefRev23 cefEvent) {
+        final int start = tokenizer.headerStart(0);
+        final int end = tokenizer.envelopeEnd();
+        if (end == start) {
+            return;
+        }
+        final CharSequence message = tokenizer.message();
+        if (message instanceof String) {
+            // Strings are immutable, the event refers to the message rather than to a copy of the header
+            cefEvent.setSyslogHeader((String) message, start, end);
+        } else if (message instanceof ByteCharSequence) {
+            // The bytes belong to the caller and must be copied, decoding them is left to the event
+            cefEvent.setSyslogHeader(((ByteCharSequence) message).copyBytes(start, end));
         } else {
-            return cefEvent;
+            cefEvent.setSyslogHeader(message.subSequence(start, end).toString());
         }
     }
-}
 
+    // Ordinal of the extension, -1 for a custom extension
+    private static int extensionOrdinal(CEFTokenizer tokenizer, int extension) {
+        if (tokenizer.isPlainKey(extension)) {
+            return CefRev23.extensionOrdinal(tokenizer.message(), tokenizer.keyStart(extension), tokenizer.keyEnd(extension));
+        }
+        final String key = tokenizer.key(extension);
+        return CefRev23.extensionOrdinal(key, 0, key.length());
+    }
+
+    /**
+     * Per thread scratch state
+     */
+    private static final class Scratch {
+        private final CEFTokenizer tokenizer = new CEFTokenizer();
+        private final ByteCharSequence bytes = new ByteCharSequence();
+        private final ByteCharSequence keyView = new ByteCharSequence();
+        private final ByteCharSequence valueView = new ByteCharSequence();
+
+        private static final int TOKENIZE = 0;
+        private static final int CONVERT = 1;
+        private static final int VALIDATE = 2;
+
+        // Stage reached by the last message and clock readings at the end of each stage, read by the metrics
+        private int stage;
+        private long started;
+        private long tokenized;
+        private long converted;
+        private String deviceVendor;
+
+        // Outcome of the last message parsed, the error is null when it was parsed
+        private ErrorCode error;
+        private int errorOffset;
+        private String errorField;
+        private String errorMessage;
+
+        // Views and tokenizer are cleared after every call, so that an idle thread does not pin the last input
+        private void release() {
+            tokenizer.clear();
+            bytes.clear();
+            keyView.clear();
+            valueView.clear();
+            deviceVendor = null;
+        }
+
+        private void fail(ErrorCode error, int errorOffset, String errorField, String errorMessage) {
+            this.error = error;
+            this.errorOffset = errorOffset;
+            this.errorField = errorField;
+            this.errorMessage = errorMessage;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CommonEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads newline delimited CEF messages from an {@link InputStream} or a blocking {@link ReadableByteChannel}.
+ * <p>
+ * Bytes are read into a single growable buffer and every line is handed to
+ * {@link CEFParser#parse(byte[], int, int, boolean, boolean, Locale)} in place, so no String or array is created per
+ * line. Lines may end with <code>\n</code> or <code>\r\n</code> and empty lines are ignored.
+ * <p>
+ * Lines that cannot be parsed are skipped and reported to the {@link FailureListener}, if any, together with their
+ * byte offset from the start of the input. Lines rejected by the filter of the parser are skipped without being
+ * reported. {@link #offset()} and {@link #lineNumber()} locate the line of the last event returned.
+ * <p>
+ * Lines longer than {@link #setMaxLineLength(int) the maximum line length} are skipped up to the next newline and
+ * reported as failures, so that input without newlines cannot make the buffer grow without bounds.
+ * <p>
+ * While the <code>com.fluenda.parcefone.ParseThroughput</code> Flight Recorder event is enabled, the reader reports a
+ * throughput sample every 10,000 lines and at the end of the input.
+ * <p>
+ * Readers are not thread safe, although several readers may share a parser.
+ */
+public class CEFReader implements Closeable {
+    /**
+     * Default maximum length of a line in bytes
+     */
+    public static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    // Lines covered by a Flight Recorder throughput sample
+    static final int SAMPLE_LINES = 10_000;
+
+    /**
+     * Receives the lines a reader could not parse
+     */
+    @FunctionalInterface
+    public interface FailureListener {
+        /**
+         * @param offset Byte offset of the line from the start of the input
+         * @param lineNumber Line number, starting at 1
+         * @param line Read-only view of the line, only valid for the duration of the call. Lines longer than the maximum
+         *             line length are truncated to that length
+         */
+        void onFailure(long offset, long lineNumber, ByteBuffer line);
+    }
+
+    private final CEFParser parser;
+    private final InputStream stream;
+    private final ReadableByteChannel channel;
+    private final boolean validate;
+    private final boolean allowNulls;
+    private final Locale locale;
+
+    private FailureListener failureListener;
+    private int maxLineLength = DEFAULT_MAX_LINE_LENGTH;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private ByteBuffer channelBuffer;
+    private int start;
+    private int end;
+    private int scanned;
+    private boolean eof;
+
+    // True while skipping the rest of a line longer than the maximum
+    private boolean skipping;
+
+    // Input offset of the first byte of the buffer
+    private long bufferOffset;
+
+    private int lineStart;
+    private int lineEnd;
+    private long lines;
+
+    private long offset = -1;
+    private long lineNumber;
+    private long events;
+    private long failures;
+    private long rejected;
+
+    // Throughput sample in progress, if enabled, and the counters when it began
+    private Object sample;
+    private long sampleEnd;
+    private long sampleMessages;
+    private long sampleEvents;
+    private long sampleFailures;
+    private long sampleRejected;
+    private long sampleOffset;
+
+    /**
+     * Creates a reader of an input stream with validation disabled
+     *
+     * @param parser The parser used for every line
+     * @param stream Stream of UTF-8 encoded, newline delimited CEF messages
+     */
+    public CEFReader(CEFParser parser, InputStream stream) {
+        this(parser, stream, false, false, Locale.ENGLISH);
+    }
+
+    /**
+     * Creates a reader of an input stream
+     *
+     * @param parser The parser used for every line
+     * @param stream Stream of UTF-8 encoded, newline delimited CEF messages
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public CEFReader(CEFParser parser, InputStream stream, boolean validate, boolean allowNulls, Locale locale) {
+        this(parser, Objects.requireNonNull(stream), null, validate, allowNulls, locale);
+    }
+
+    /**
+     * Creates a reader of a channel with validation disabled
+     *
+     * @param parser The parser used for every line
+     * @param channel Blocking channel of UTF-8 encoded, newline delimited CEF messages
+     */
+    public CEFReader(CEFParser parser, ReadableByteChannel channel) {
+        this(parser, channel, false, false, Locale.ENGLISH);
+    }
+
+    /**
+     * Creates a reader of a channel
+     *
+     * @param parser The parser used for every line
+     * @param channel Blocking channel of UTF-8 encoded, newline delimited CEF messages
+     * @param validate Boolean if parser should validate values beyond type compatibility (e.g. Values within acceptable lengths, value lists, etc)
+     * @param allowNulls If true, extensions with an empty value will be seen as null. If false, parsing may fail depending on extension types
+     * @param locale The locale to be used when parsing dates (so that parser can handle both jul (en_US) and juil.(fr_FR)
+     */
+    public CEFReader(CEFParser parser, ReadableByteChannel channel, boolean validate, boolean allowNulls, Locale locale) {
+        this(parser, null, Objects.requireNonNull(channel), validate, allowNulls, locale);
+    }
+
+    private CEFReader(CEFParser parser, InputStream stream, ReadableByteChannel channel, boolean validate, boolean allowNulls, Locale locale) {
+        this.parser = Objects.requireNonNull(parser);
+        this.stream = stream;
+        this.channel = channel;
+        this.validate = validate;
+        this.allowNulls = allowNulls;
+        this.locale = locale;
+    }
+
+    /**
+     * @param failureListener Listener notified of every line that cannot be parsed, or null
+     */
+    public void setFailureListener(FailureListener failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * @param maxLineLength Maximum length of a line in bytes, {@link #DEFAULT_MAX_LINE_LENGTH} by default. Longer lines
+     *                      are skipped and reported as failures
+     */
+    public void setMaxLineLength(int maxLineLength) {
+        if (maxLineLength < 1) {
+            throw new IllegalArgumentException("Invalid maximum line length " + maxLineLength);
+        }
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Read the next event, skipping the lines that cannot be parsed
+     *
+     * @return The next event or null at the end of the input
+     * @throws IOException when reading the input fails
+     */
+    public CommonEvent read() throws IOException {
+        if (lines >= sampleEnd) {
+            sample();
+        }
+        while (nextLine()) {
+            final CommonEvent event = parser.parse(buffer, lineStart, lineEnd - lineStart, validate, allowNulls, locale);
+            if (event != null) {
+                offset = bufferOffset + lineStart;
+                lineNumber = lines;
+                events++;
+                return event;
+            }
+
+            if (parser.isRejected()) {
+                rejected++;
+                continue;
+            }
+            fail(lineStart, lineEnd - lineStart);
+        }
+
+        // No more samples once the input is exhausted
+        sampleEnd = Long.MAX_VALUE;
+        sample();
+        return null;
+    }
+
+    // Commit the sample in progress, then begin the next one unless the input is exhausted
+    private void sample() {
+        final long messages = events + failures + rejected;
+        final long consumed = bufferOffset + start;
+        if (sample != null) {
+            FlightRecorderEvents.commitThroughput(sample, messages - sampleMessages, events - sampleEvents, failures - sampleFailures,
+                    rejected - sampleRejected, consumed - sampleOffset);
+            sample = null;
+        }
+        if (sampleEnd == Long.MAX_VALUE) {
+            return;
+        }
+
+        sample = FlightRecorderEvents.beginThroughput("CEFReader");
+        sampleEnd = lines + SAMPLE_LINES;
+        sampleMessages = messages;
+        sampleEvents = events;
+        sampleFailures = failures;
+        sampleRejected = rejected;
+        sampleOffset = consumed;
+    }
+
+    /**
+     * @return Byte offset from the start of the input of the line holding the last event read, or -1
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * @return Line number, starting at 1, of the line holding the last event read, or 0
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return Number of lines that could not be parsed so far
+     */
+    public long failures() {
+        return failures;
+    }
+
+    /**
+     * @return Number of lines rejected by the filter of the parser so far, see {@link CEFParser#withFilter(EventFilter)}
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    /**
+     * The iterator shares the state of the reader and {@link IOException IOExceptions} are rethrown as
+     * {@link UncheckedIOException}
+     *
+     * @return An iterator over the remaining events
+     */
+    public Iterator<CommonEvent> iterator() {
+        return new Iterator<CommonEvent>() {
+            private CommonEvent next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public CommonEvent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final CommonEvent event = next;
+                next = null;
+                return event;
+            }
+        };
+    }
+
+    /**
+     * The stream shares the state of the reader, closing the stream closes the reader
+     *
+     * @return A sequential stream of the remaining events
+     */
+    public Stream<CommonEvent> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Close the underlying stream or channel
+     *
+     * @throws IOException when closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        sampleEnd = Long.MAX_VALUE;
+        sample();
+        if (stream != null) {
+            stream.close();
+        } else {
+            channel.close();
+        }
+    }
+
+    private void fail(int from, int length) {
+        failures++;
+        if (failureListener != null) {
+            failureListener.onFailure(bufferOffset + from, lines, ByteBuffer.wrap(buffer, from, length).asReadOnlyBuffer());
+        }
+    }
+
+    private boolean nextLine() throws IOException {
+        while (true) {
+            for (int i = scanned; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    if (skipping) {
+                        // End of an overlong line, already reported
+                        skipping = false;
+                    } else if (i - start > maxLineLength) {
+                        overlong();
+                    } else if (setLine(start, i)) {
+                        start = i + 1;
+                        scanned = start;
+                        return true;
+                    }
+                    start = i + 1;
+                }
+            }
+            scanned = end;
+
+            if (!skipping && end - start > maxLineLength) {
+                overlong();
+                skipping = true;
+            }
+            if (skipping) {
+                // Drop the bytes of the overlong line read so far
+                start = end;
+            }
+
+            if (eof) {
+                // Last line, unless the input ended with a newline or an overlong line
+                final boolean found = !skipping && start < end && setLine(start, end);
+                skipping = false;
+                start = end;
+                return found;
+            }
+            fill();
+        }
+    }
+
+    // Report the line starting at start as a failure, truncated to the maximum length
+    private void overlong() {
+        lines++;
+        fail(start, maxLineLength);
+    }
+
+    // Marks the line between start and end (exclusive, newline excluded), returns false for empty lines
+    private boolean setLine(int start, int end) {
+        lines++;
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        lineStart = start;
+        lineEnd = end;
+        return end > start;
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            // Drop the lines already consumed
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            bufferOffset += start;
+            end -= start;
+            scanned -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            channelBuffer = null;
+        }
+
+        final int read;
+        if (stream != null) {
+            read = stream.read(buffer, end, buffer.length - end);
+        } else {
+            if (channelBuffer == null) {
+                channelBuffer = ByteBuffer.wrap(buffer);
+            }
+            channelBuffer.limit(buffer.length).position(end);
+            read = channel.read(channelBuffer);
+        }
+
+        if (read < 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+}
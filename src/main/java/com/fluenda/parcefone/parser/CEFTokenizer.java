@@ -0,0 +1,315 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import java.util.Arrays;
+
+/**
+ * Single pass tokenizer for Common Event Format messages.
+ * <p>
+ * The tokenizer walks the message once and records the boundaries of the seven header fields followed by the
+ * boundaries of every extension key and value. No regular expressions or intermediate Strings are involved.
+ * <p>
+ * A delimiter (<code>|</code> within the header, <code>=</code> within the extension) is only honoured when it is not
+ * immediately preceded by a backslash. An extension value runs up to the last space preceding the next delimiter, so
+ * values may contain spaces and unescaped <code>=</code> characters that are not followed by a key.
+ * <p>
+ * Anything preceding the <code>CEF:</code> signature within the first header field, typically a syslog header, is
+ * reported separately by {@link #envelopeEnd()}.
+ * <p>
+ * Instances keep reusable scratch arrays and are not thread safe.
+ */
+final class CEFTokenizer {
+    static final int HEADER_SIZE = 7;
+
+    private static final char ESCAPE = '\\';
+    private static final char HEADER_DELIMITER = '|';
+    private static final char EXTENSION_DELIMITER = '=';
+    private static final char SPACE = ' ';
+    private static final String SIGNATURE = "CEF:";
+
+    // Start and end offsets of every header field
+    private final int[] header = new int[HEADER_SIZE * 2];
+
+    // Key start, key end, value start and value end of every extension
+    private int[] extensions = new int[128];
+    private int extensionCount;
+
+    private CharSequence message;
+    private int extensionStart;
+    private int signatureStart;
+    private int end;
+    private boolean firstKeyHasSpaces;
+
+    // Bitwise OR of every character scanned, used to detect pure ASCII messages
+    private int scannedBits;
+
+    /**
+     * Tokenize a complete message
+     *
+     * @param message The CEF message
+     * @return false if the message does not contain a complete CEF header
+     */
+    boolean tokenize(CharSequence message) {
+        if (!tokenizeHeader(message, 0, message.length())) {
+            return false;
+        }
+        tokenizeExtension();
+        return true;
+    }
+
+    /**
+     * Locate the seven header fields and the start of the extension
+     *
+     * @param message The CEF message
+     * @param from Offset of the first character of the message
+     * @param to Offset following the last character of the message
+     * @return false if less than seven unescaped delimiters could be found
+     */
+    boolean tokenizeHeader(CharSequence message, int from, int to) {
+        this.message = message;
+        this.end = to;
+        this.extensionCount = 0;
+        this.scannedBits = 0;
+
+        int field = 0;
+        int fieldStart = from;
+        int bits = 0;
+        char previous = 0;
+
+        for (int i = from; i < to; i++) {
+            final char c = message.charAt(i);
+            bits |= c;
+            if (c == HEADER_DELIMITER && previous != ESCAPE) {
+                header[field * 2] = fieldStart;
+                header[field * 2 + 1] = i;
+                if (field == 0) {
+                    locateSignature(fieldStart, i);
+                }
+                fieldStart = i + 1;
+                if (++field == HEADER_SIZE) {
+                    this.extensionStart = fieldStart;
+                    this.scannedBits = bits;
+                    return true;
+                }
+            }
+            previous = c;
+        }
+        this.scannedBits = bits;
+        return false;
+    }
+
+    /**
+     * Locate all extension keys and values following a successful {@link #tokenizeHeader(CharSequence, int, int)}
+     */
+    void tokenizeExtension() {
+        final CharSequence message = this.message;
+        final int to = this.end;
+
+        int keyStart = extensionStart;
+        int valueStart = -1;
+        int lastSpace = -1;
+        int bits = 0;
+        char previous = 0;
+
+        for (int i = extensionStart; i < to; i++) {
+            final char c = message.charAt(i);
+            bits |= c;
+            if (c == SPACE) {
+                lastSpace = i;
+            } else if (c == EXTENSION_DELIMITER && previous != ESCAPE) {
+                if (valueStart < 0) {
+                    // First key, whatever precedes the delimiter minus any spaces
+                    addFirstKey(keyStart, i);
+                    valueStart = i + 1;
+                } else if (lastSpace >= valueStart) {
+                    // The previous value ends at the last space before this delimiter and the key follows it
+                    addValue(valueStart, lastSpace);
+                    addKey(lastSpace + 1, i);
+                    valueStart = i + 1;
+                }
+                // Otherwise no key can precede this delimiter, so it is part of the current value
+            }
+            previous = c;
+        }
+
+        if (valueStart >= 0) {
+            addValue(valueStart, to);
+        }
+        scannedBits |= bits;
+    }
+
+    // The last "CEF:" of the first header field, or the start of the field if there is none
+    private void locateSignature(int start, int end) {
+        signatureStart = start;
+        for (int i = end - SIGNATURE.length(); i > start; i--) {
+            if (message.charAt(i) == 'C' && message.charAt(i + 1) == 'E' && message.charAt(i + 2) == 'F' && message.charAt(i + 3) == ':') {
+                signatureStart = i;
+                return;
+            }
+        }
+    }
+
+    private void addFirstKey(int start, int end) {
+        while (start < end && message.charAt(start) == SPACE) {
+            start++;
+        }
+        while (end > start && message.charAt(end - 1) == SPACE) {
+            end--;
+        }
+        firstKeyHasSpaces = false;
+        for (int i = start; i < end; i++) {
+            if (message.charAt(i) == SPACE) {
+                firstKeyHasSpaces = true;
+                break;
+            }
+        }
+        addKey(start, end);
+    }
+
+    private void addKey(int start, int end) {
+        final int index = extensionCount * 4;
+        if (index + 4 > extensions.length) {
+            extensions = Arrays.copyOf(extensions, extensions.length * 2);
+        }
+        extensions[index] = start;
+        extensions[index + 1] = end;
+    }
+
+    private void addValue(int start, int end) {
+        final int index = extensionCount * 4;
+        extensions[index + 2] = start;
+        extensions[index + 3] = end;
+        extensionCount++;
+    }
+
+    CharSequence message() {
+        return message;
+    }
+
+    /**
+     * Drop the reference to the last message, offsets are kept until the next message is tokenized
+     */
+    void clear() {
+        message = null;
+    }
+
+    /**
+     * @return true if every character scanned so far is ASCII
+     */
+    boolean isAscii() {
+        return scannedBits < 0x80;
+    }
+
+    int headerStart(int field) {
+        return header[field * 2];
+    }
+
+    int headerEnd(int field) {
+        return header[field * 2 + 1];
+    }
+
+    /**
+     * @return Offset of the <code>CEF:</code> signature, or of the first header field if it has no signature
+     */
+    int signatureStart() {
+        return signatureStart;
+    }
+
+    /**
+     * The envelope is the text preceding the <code>CEF:</code> signature (e.g. a syslog header), it starts at
+     * {@link #headerStart(int) headerStart(0)} and is located without being copied.
+     *
+     * @return Offset following the envelope without its trailing spaces, equal to <code>headerStart(0)</code> if the
+     *         message starts with the signature
+     */
+    int envelopeEnd() {
+        int envelopeEnd = signatureStart;
+        while (envelopeEnd > headerStart(0) && message.charAt(envelopeEnd - 1) == SPACE) {
+            envelopeEnd--;
+        }
+        return envelopeEnd;
+    }
+
+    int extensionStart() {
+        return extensionStart;
+    }
+
+    int extensionCount() {
+        return extensionCount;
+    }
+
+    int keyStart(int extension) {
+        return extensions[extension * 4];
+    }
+
+    int keyEnd(int extension) {
+        return extensions[extension * 4 + 1];
+    }
+
+    int valueStart(int extension) {
+        return extensions[extension * 4 + 2];
+    }
+
+    int valueEnd(int extension) {
+        return extensions[extension * 4 + 3];
+    }
+
+    /**
+     * @param field Index of the header field
+     * @return The header field as a String
+     */
+    String header(int field) {
+        return substring(headerStart(field), headerEnd(field));
+    }
+
+    /**
+     * @param extension Index of the extension
+     * @return true if the key is exactly the region between {@link #keyStart(int)} and {@link #keyEnd(int)}
+     */
+    boolean isPlainKey(int extension) {
+        return extension != 0 || !firstKeyHasSpaces;
+    }
+
+    /**
+     * @param extension Index of the extension
+     * @return The extension key as a String (spaces removed)
+     */
+    String key(int extension) {
+        final String key = substring(keyStart(extension), keyEnd(extension));
+        if (extension == 0 && firstKeyHasSpaces) {
+            return key.replace(" ", "");
+        }
+        return key;
+    }
+
+    /**
+     * @param extension Index of the extension
+     * @return The extension value as a String
+     */
+    String value(int extension) {
+        return substring(valueStart(extension), valueEnd(extension));
+    }
+
+    private String substring(int start, int end) {
+        if (message instanceof ByteCharSequence) {
+            return ((ByteCharSequence) message).toString(start, end);
+        }
+        return message.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.ErrorCode;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * {@link ParserMetrics} counting outcomes in {@link LongAdder LongAdders} and timing stages in fixed-bucket
+ * histograms, so that parsing threads never contend on a counter.
+ * <p>
+ * Besides the totals, messages are counted by device vendor (with the nanoseconds spent on them when timing is
+ * enabled), failures by {@link ErrorCode} and by field, and custom extensions by key when enabled. Each of these
+ * breakdowns keeps at most {@link #MAX_KEYS} keys, later keys being counted under {@link #OTHER}, so that a noisy
+ * source cannot grow them without bounds.
+ * <p>
+ * Instances may be shared by any number of parsers and threads. Readings are not atomic snapshots while messages
+ * are being parsed.
+ */
+public class DefaultParserMetrics implements ParserMetrics {
+    /**
+     * Maximum number of keys of every breakdown
+     */
+    public static final int MAX_KEYS = 1024;
+
+    /**
+     * Key counting the entries beyond {@link #MAX_KEYS}
+     */
+    public static final String OTHER = "(other)";
+
+    private final boolean timing;
+    private final boolean countingCustomExtensions;
+
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder[] failures = new LongAdder[ErrorCode.values().length];
+
+    private final Map<String, LongAdder> messagesByVendor = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> nanosByVendor = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failuresByField = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> customExtensions = new ConcurrentHashMap<>();
+
+    private final Histogram tokenizeTimes = new Histogram();
+    private final Histogram convertTimes = new Histogram();
+    private final Histogram validateTimes = new Histogram();
+
+    /**
+     * Histogram of durations with power of two buckets, from 16 ns up to about 1 s, and an overflow bucket
+     */
+    public static final class Histogram {
+        private static final int MIN_EXPONENT = 4;
+        private static final int MAX_EXPONENT = 30;
+
+        private final LongAdder[] counts = new LongAdder[MAX_EXPONENT - MIN_EXPONENT + 2];
+        private final LongAdder totalNanos = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            final int exponent = nanos <= 1L << MIN_EXPONENT ? MIN_EXPONENT : 64 - Long.numberOfLeadingZeros(nanos - 1);
+            counts[Math.min(exponent, MAX_EXPONENT + 1) - MIN_EXPONENT].increment();
+            totalNanos.add(nanos);
+        }
+
+        private void reset() {
+            for (LongAdder count : counts) {
+                count.reset();
+            }
+            totalNanos.reset();
+        }
+
+        /**
+         * @return Number of buckets, including the overflow bucket
+         */
+        public int buckets() {
+            return counts.length;
+        }
+
+        /**
+         * @param bucket Index of the bucket
+         * @return Largest duration counted by the bucket, {@link Long#MAX_VALUE} for the overflow bucket
+         */
+        public long upperBound(int bucket) {
+            return bucket == counts.length - 1 ? Long.MAX_VALUE : 1L << (bucket + MIN_EXPONENT);
+        }
+
+        /**
+         * @param bucket Index of the bucket
+         * @return Number of durations counted by the bucket
+         */
+        public long count(int bucket) {
+            return counts[bucket].sum();
+        }
+
+        /**
+         * @return Number of durations recorded
+         */
+        public long count() {
+            long count = 0;
+            for (LongAdder bucket : counts) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * @return Sum of the durations recorded
+         */
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @param percentile Percentile between 0 and 100
+         * @return Upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+         */
+        public long percentile(double percentile) {
+            final long[] snapshot = new long[counts.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                snapshot[i] = counts[i].sum();
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(snapshot.length - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{count=" + count() + ", p50=" + percentile(50) + ", p99=" + percentile(99) + "}";
+        }
+    }
+
+    /**
+     * Creates metrics counting outcomes only
+     */
+    public DefaultParserMetrics() {
+        this(false, false);
+    }
+
+    /**
+     * @param timing true to time the stages of every message
+     * @param countingCustomExtensions true to count custom extensions by key
+     */
+    public DefaultParserMetrics(boolean timing, boolean countingCustomExtensions) {
+        this.timing = timing;
+        this.countingCustomExtensions = countingCustomExtensions;
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public boolean isTimingEnabled() {
+        return timing;
+    }
+
+    @Override
+    public boolean isCountingCustomExtensions() {
+        return countingCustomExtensions;
+    }
+
+    @Override
+    public void parsed(String deviceVendor, long tokenizeNanos, long convertNanos, long validateNanos) {
+        parsed.increment();
+        record(deviceVendor, tokenizeNanos, convertNanos, validateNanos);
+    }
+
+    @Override
+    public void rejected(long tokenizeNanos) {
+        rejected.increment();
+        if (tokenizeNanos > 0) {
+            tokenizeTimes.record(tokenizeNanos);
+        }
+    }
+
+    @Override
+    public void failed(ErrorCode errorCode, String deviceVendor, String field, long tokenizeNanos, long convertNanos, long validateNanos) {
+        failures[errorCode.ordinal()].increment();
+        if (field != null) {
+            increment(failuresByField, field, 1);
+        }
+        record(deviceVendor, tokenizeNanos, convertNanos, validateNanos);
+    }
+
+    @Override
+    public void customExtension(String key) {
+        increment(customExtensions, key, 1);
+    }
+
+    private void record(String deviceVendor, long tokenizeNanos, long convertNanos, long validateNanos) {
+        if (deviceVendor != null) {
+            increment(messagesByVendor, deviceVendor, 1);
+        }
+        if (!timing) {
+            return;
+        }
+        if (tokenizeNanos > 0) {
+            tokenizeTimes.record(tokenizeNanos);
+        }
+        if (convertNanos > 0) {
+            convertTimes.record(convertNanos);
+        }
+        if (validateNanos > 0) {
+            validateTimes.record(validateNanos);
+        }
+        if (deviceVendor != null) {
+            increment(nanosByVendor, deviceVendor, tokenizeNanos + convertNanos + validateNanos);
+        }
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key, long amount) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(counters.size() < MAX_KEYS ? key : OTHER, k -> new LongAdder());
+        }
+        counter.add(amount);
+    }
+
+    /**
+     * @return Number of messages turned into events
+     */
+    public long parsed() {
+        return parsed.sum();
+    }
+
+    /**
+     * @return Number of messages rejected by the filter
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @param errorCode A reason of failure
+     * @return Number of messages that failed for the given reason
+     */
+    public long failures(ErrorCode errorCode) {
+        return errorCode == ErrorCode.REJECTED ? rejected() : failures[errorCode.ordinal()].sum();
+    }
+
+    /**
+     * @return Number of messages that could not be turned into events, rejected messages excluded
+     */
+    public long failures() {
+        long count = 0;
+        for (LongAdder failure : failures) {
+            count += failure.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of conversion failures and constraint violations by header field or extension key
+     */
+    public Map<String, Long> failuresByField() {
+        return snapshot(failuresByField);
+    }
+
+    /**
+     * @return Number of parsed and failed messages by device vendor
+     */
+    public Map<String, Long> messagesByVendor() {
+        return snapshot(messagesByVendor);
+    }
+
+    /**
+     * @return Nanoseconds spent on the parsed and failed messages of every device vendor, empty unless timing
+     */
+    public Map<String, Long> nanosByVendor() {
+        return snapshot(nanosByVendor);
+    }
+
+    /**
+     * @return Number of occurrences of every custom extension key, empty unless counting custom extensions
+     */
+    public Map<String, Long> customExtensions() {
+        return snapshot(customExtensions);
+    }
+
+    /**
+     * @return Durations of the tokenize stage, empty unless timing
+     */
+    public Histogram tokenizeTimes() {
+        return tokenizeTimes;
+    }
+
+    /**
+     * @return Durations of the convert stage, empty unless timing
+     */
+    public Histogram convertTimes() {
+        return convertTimes;
+    }
+
+    /**
+     * @return Durations of the validate stage of validated messages, empty unless timing
+     */
+    public Histogram validateTimes() {
+        return validateTimes;
+    }
+
+    /**
+     * Reset every counter and histogram
+     */
+    public void reset() {
+        parsed.reset();
+        rejected.reset();
+        for (LongAdder failure : failures) {
+            failure.reset();
+        }
+        messagesByVendor.clear();
+        nanosByVendor.clear();
+        failuresByField.clear();
+        customExtensions.clear();
+        tokenizeTimes.reset();
+        convertTimes.reset();
+        validateTimes.reset();
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        final Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            snapshot.put(counter.getKey(), counter.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultParserMetrics{parsed=" + parsed() + ", rejected=" + rejected() + ", failures=" + failures() + "}";
+    }
+}
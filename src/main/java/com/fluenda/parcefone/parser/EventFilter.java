@@ -0,0 +1,215 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CommonEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Conditions on the raw header fields and extension values of a CEF message, checked while the message is tokenized
+ * so that unwanted messages are rejected before any event is built, see {@link CEFParser#withFilter(EventFilter)}.
+ * <p>
+ * Header conditions are checked as soon as the seven header fields have been located, before the extension is even
+ * scanned. Extension conditions are checked once the extension has been tokenized, before any value is converted.
+ * A message is accepted when every condition holds; a condition on an extension the message lacks does not hold.
+ * <p>
+ * Conditions see the raw text, escape sequences included. Equality conditions compare bytes in place and never
+ * allocate. Predicates of pure ASCII byte messages receive a reusable view that is only valid for the duration of the
+ * call and must not be retained, other messages are decoded first.
+ * <p>
+ * Filters are immutable and may be shared by threads.
+ */
+public final class EventFilter {
+    private final Condition[] conditions;
+
+    private static final class Condition {
+        // Header field index, or -1 for an extension
+        private final int header;
+        private final String key;
+        private final String encodedKey;
+        private final Predicate<? super CharSequence> predicate;
+        private final String value;
+        private final String encodedValue;
+
+        private Condition(int header, String key, Predicate<? super CharSequence> predicate, String value) {
+            this.header = header;
+            this.key = key;
+            this.encodedKey = key == null ? null : encode(key);
+            this.predicate = predicate;
+            this.value = value;
+            this.encodedValue = value == null ? null : encode(value);
+        }
+    }
+
+    private EventFilter(Condition... conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * @param name Name of the header field, e.g. <code>deviceVendor</code> or <code>severity</code>
+     * @param predicate Condition on the raw value of the header field
+     * @return A filter accepting messages whose header field matches the predicate
+     * @throws IllegalArgumentException when the name is not a CEF header field
+     */
+    public static EventFilter header(String name, Predicate<? super CharSequence> predicate) {
+        return new EventFilter(new Condition(headerIndex(name), null, Objects.requireNonNull(predicate), null));
+    }
+
+    /**
+     * @param name Name of the header field, e.g. <code>deviceVendor</code> or <code>severity</code>
+     * @param value Expected raw value of the header field
+     * @return A filter accepting messages whose header field equals the value
+     * @throws IllegalArgumentException when the name is not a CEF header field
+     */
+    public static EventFilter headerEquals(String name, String value) {
+        return new EventFilter(new Condition(headerIndex(name), null, null, Objects.requireNonNull(value)));
+    }
+
+    /**
+     * @param key Extension key, either part of the CEF standard or a custom extension
+     * @param predicate Condition on the raw value of the extension, when the key is repeated the last value is tested
+     * @return A filter accepting messages holding the extension with a value matching the predicate
+     */
+    public static EventFilter extension(String key, Predicate<? super CharSequence> predicate) {
+        return new EventFilter(new Condition(-1, Objects.requireNonNull(key), Objects.requireNonNull(predicate), null));
+    }
+
+    /**
+     * @param key Extension key, either part of the CEF standard or a custom extension
+     * @param value Expected raw value of the extension, when the key is repeated the last value is tested
+     * @return A filter accepting messages holding the extension with the value
+     */
+    public static EventFilter extensionEquals(String key, String value) {
+        return new EventFilter(new Condition(-1, Objects.requireNonNull(key), null, Objects.requireNonNull(value)));
+    }
+
+    /**
+     * @param other Another filter
+     * @return A filter accepting messages accepted by both filters
+     */
+    public EventFilter and(EventFilter other) {
+        final Condition[] combined = Arrays.copyOf(conditions, conditions.length + other.conditions.length);
+        System.arraycopy(other.conditions, 0, combined, conditions.length, other.conditions.length);
+        return new EventFilter(combined);
+    }
+
+    /**
+     * Check the header conditions following {@link CEFTokenizer#tokenizeHeader(CharSequence, int, int)}
+     *
+     * @param tokenizer Tokenizer holding the header of the message
+     * @param view Reusable view used to present byte ranges to predicates
+     * @return false if the message is rejected
+     */
+    boolean acceptsHeader(CEFTokenizer tokenizer, ByteCharSequence view) {
+        for (Condition condition : conditions) {
+            if (condition.header >= 0
+                    && !test(condition, tokenizer, tokenizer.headerStart(condition.header), tokenizer.headerEnd(condition.header), view)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check the extension conditions following {@link CEFTokenizer#tokenizeExtension()}
+     *
+     * @param tokenizer Tokenizer holding the extensions of the message
+     * @param view Reusable view used to present byte ranges to predicates
+     * @return false if the message is rejected
+     */
+    boolean acceptsExtension(CEFTokenizer tokenizer, ByteCharSequence view) {
+        for (Condition condition : conditions) {
+            if (condition.header < 0) {
+                final int extension = find(tokenizer, condition);
+                if (extension < 0 || !test(condition, tokenizer, tokenizer.valueStart(extension), tokenizer.valueEnd(extension), view)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if some condition applies to an extension
+     */
+    boolean hasExtensionConditions() {
+        for (Condition condition : conditions) {
+            if (condition.header < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Index of the last extension with the key of the condition, or -1
+    private static int find(CEFTokenizer tokenizer, Condition condition) {
+        final CharSequence message = tokenizer.message();
+        final String key = message instanceof ByteCharSequence ? condition.encodedKey : condition.key;
+        for (int i = tokenizer.extensionCount() - 1; i >= 0; i--) {
+            if (tokenizer.isPlainKey(i)
+                    ? regionEquals(message, tokenizer.keyStart(i), tokenizer.keyEnd(i), key)
+                    : condition.key.equals(tokenizer.key(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean test(Condition condition, CEFTokenizer tokenizer, int start, int end, ByteCharSequence view) {
+        final CharSequence message = tokenizer.message();
+        final boolean bytes = message instanceof ByteCharSequence;
+
+        if (condition.predicate == null) {
+            return regionEquals(message, start, end, bytes ? condition.encodedValue : condition.value);
+        }
+        if (bytes && tokenizer.isAscii()) {
+            return condition.predicate.test(view.reset((ByteCharSequence) message, start, end));
+        }
+        return condition.predicate.test(bytes ? ((ByteCharSequence) message).toString(start, end) : message.subSequence(start, end).toString());
+    }
+
+    private static boolean regionEquals(CharSequence text, int start, int end, String expected) {
+        final int length = expected.length();
+        if (length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // UTF-8 bytes of a value, one char per byte, as read through a ByteCharSequence
+    private static String encode(String value) {
+        return new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    private static int headerIndex(String name) {
+        final int index = CommonEvent.HEADER_KEYS.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a CEF header field " + name);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.ErrorCode;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * <p>
+ * Entry points of the Flight Recorder events of the parser package, which keep Flight Recorder off the parse path
+ * unless it is in use.
+ * <p>
+ * Nothing is looked up until Flight Recorder has been initialized, e.g. by <code>-XX:StartFlightRecording</code> or
+ * the first recording started, so that parsing never pays for its initialization. Events are only created while
+ * enabled in a running recording. When the <code>jdk.jfr</code> module is missing from the runtime, no class of the
+ * module is ever loaded and no event is emitted.
+ * <p>
+ * Events are handed over as opaque objects, so that callers do not link against the event classes.
+ */
+final class FlightRecorderEvents {
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return A begun {@link SlowParseEvent}, or null if the event is not enabled
+     */
+    static Object beginSlowParse() {
+        return AVAILABLE && Jfr.isInitialized() ? Jfr.beginSlowParse() : null;
+    }
+
+    /**
+     * Commit an event returned by {@link #beginSlowParse()} if the parse exceeded the threshold
+     *
+     * @param slowParse The event
+     * @param deviceVendor Device vendor header of the message, or null
+     * @param length Length of the message
+     * @param errorCode Reason why the message could not be parsed, or null
+     * @param field Offending header field or extension key, or null
+     * @param validated true if the event was validated
+     * @param lazy true if the event was decoded lazily
+     */
+    static void commitSlowParse(Object slowParse, String deviceVendor, int length, ErrorCode errorCode, String field,
+                                boolean validated, boolean lazy) {
+        Jfr.commitSlowParse(slowParse, deviceVendor, length, errorCode, field, validated, lazy);
+    }
+
+    /**
+     * @param source Name of the caller
+     * @return A begun {@link ParseThroughputEvent}, or null if the event is not enabled
+     */
+    static Object beginThroughput(String source) {
+        return AVAILABLE && Jfr.isInitialized() ? Jfr.beginThroughput(source) : null;
+    }
+
+    /**
+     * Commit a sample returned by {@link #beginThroughput(String)}
+     *
+     * @param sample The sample
+     * @param messages Non-empty messages parsed
+     * @param parsed Messages turned into events
+     * @param failed Messages that could not be parsed
+     * @param rejected Messages rejected by the filter
+     * @param size Length of the messages
+     */
+    static void commitThroughput(Object sample, long messages, long parsed, long failed, long rejected, long size) {
+        Jfr.commitThroughput(sample, messages, parsed, failed, rejected, size);
+    }
+
+    // Only loaded once the jdk.jfr module is known to be present
+    private static final class Jfr {
+        static boolean isInitialized() {
+            return FlightRecorder.isInitialized();
+        }
+
+        static Object beginSlowParse() {
+            if (!SlowParseType.TYPE.isEnabled()) {
+                return null;
+            }
+            final SlowParseEvent event = new SlowParseEvent();
+            event.begin();
+            return event;
+        }
+
+        static void commitSlowParse(Object slowParse, String deviceVendor, int length, ErrorCode errorCode, String field,
+                                    boolean validated, boolean lazy) {
+            final SlowParseEvent event = (SlowParseEvent) slowParse;
+            event.end();
+            if (event.shouldCommit()) {
+                event.deviceVendor = deviceVendor;
+                event.length = length;
+                event.errorCode = errorCode == null ? null : errorCode.name();
+                event.field = field;
+                event.validated = validated;
+                event.lazy = lazy;
+                event.commit();
+            }
+        }
+
+        static Object beginThroughput(String source) {
+            if (!ThroughputType.TYPE.isEnabled()) {
+                return null;
+            }
+            final ParseThroughputEvent sample = new ParseThroughputEvent();
+            sample.source = source;
+            sample.begin();
+            return sample;
+        }
+
+        static void commitThroughput(Object sample, long messages, long parsed, long failed, long rejected, long size) {
+            final ParseThroughputEvent event = (ParseThroughputEvent) sample;
+            event.messages = messages;
+            event.parsed = parsed;
+            event.failed = failed;
+            event.rejected = rejected;
+            event.size = size;
+            event.commit();
+        }
+    }
+
+    // Event types are registered on first use, once Flight Recorder is initialized
+    private static final class SlowParseType {
+        private static final EventType TYPE = EventType.getEventType(SlowParseEvent.class);
+    }
+
+    private static final class ThroughputType {
+        private static final EventType TYPE = EventType.getEventType(ParseThroughputEvent.class);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CommonEvent;
+import com.fluenda.parcefone.event.ErrorCode;
+
+/**
+ * Outcome of parsing a single message, see {@link CEFParser#tryParse(byte[], int, int, boolean, boolean, java.util.Locale)}.
+ * <p>
+ * Either holds the event, or the reason why the message could not be turned into an event together with the offset
+ * of the offending header field or extension value. Offsets count UTF-8 bytes from the start of the message when
+ * parsing bytes, and chars when parsing a String.
+ * <p>
+ * Failures are reported without raising or logging anything, callers decide what to log.
+ */
+public final class ParseResult {
+    private final CommonEvent event;
+    private final ErrorCode errorCode;
+    private final int offset;
+    private final String field;
+    private final String message;
+
+    private ParseResult(CommonEvent event, ErrorCode errorCode, int offset, String field, String message) {
+        this.event = event;
+        this.errorCode = errorCode;
+        this.offset = offset;
+        this.field = field;
+        this.message = message;
+    }
+
+    static ParseResult success(CommonEvent event) {
+        return new ParseResult(event, null, -1, null, null);
+    }
+
+    static ParseResult failure(ErrorCode errorCode, int offset, String field, String message) {
+        return new ParseResult(null, errorCode, offset, field, message);
+    }
+
+    /**
+     * @return true if the message was parsed (and validated)
+     */
+    public boolean isSuccess() {
+        return event != null;
+    }
+
+    /**
+     * @return The event, or null if the message could not be parsed
+     */
+    public CommonEvent event() {
+        return event;
+    }
+
+    /**
+     * @return Reason of the failure, or null if the message was parsed
+     */
+    public ErrorCode errorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return Offset of the offending header field or extension value within the message, or -1 if unknown (e.g. for
+     *         a message missing header fields or rejected by the filter)
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return Name of the offending header field or extension key, or null if unknown
+     */
+    public String field() {
+        return field;
+    }
+
+    /**
+     * @return Description of the failure, or null if the message was parsed
+     */
+    public String message() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        if (event != null) {
+            return "ParseResult{success}";
+        }
+        return "ParseResult{" + errorCode + ", offset=" + offset + (field != null ? ", field=" + field : "") + ", " + message + "}";
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder sample of the throughput of a batch or a stream of messages, the duration of the event covering the
+ * messages counted. {@link CEFParser#parseAll(java.util.List) parseAll} reports one sample per batch, {@link CEFBulkParser} one
+ * per chunk and {@link CEFReader} one every 10,000 lines.
+ * <p>
+ * Samples are only created while Flight Recorder is initialized and the event enabled, see
+ * {@link FlightRecorderEvents}.
+ */
+@Name("com.fluenda.parcefone.ParseThroughput")
+@Label("CEF Parse Throughput")
+@Category({"ParCEFone", "Parser"})
+@Description("Messages parsed by a batch, a chunk of a file or a stream over the duration of the event")
+@StackTrace(false)
+final class ParseThroughputEvent extends jdk.jfr.Event {
+    @Label("Source")
+    @Description("parseAll, CEFBulkParser or CEFReader")
+    String source;
+
+    @Label("Messages")
+    @Description("Non-empty messages parsed")
+    long messages;
+
+    @Label("Parsed")
+    @Description("Messages turned into events")
+    long parsed;
+
+    @Label("Failed")
+    @Description("Messages that could not be parsed")
+    long failed;
+
+    @Label("Rejected")
+    @Description("Messages rejected by the filter of the parser")
+    long rejected;
+
+    @Label("Size")
+    @Description("Length of the messages, in bytes for byte input and in characters for String input")
+    long size;
+}
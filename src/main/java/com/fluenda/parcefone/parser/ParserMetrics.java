@@ -0,0 +1,89 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.ErrorCode;
+
+/**
+ * <p>
+ * Listener notified of the outcome of every message parsed by a {@link CEFParser}, see
+ * {@link CEFParser#withMetrics(ParserMetrics)}. {@link DefaultParserMetrics} counts and times messages without any
+ * metrics library, other implementations may feed an existing metrics registry.
+ * <p>
+ * Exactly one of {@link #parsed}, {@link #rejected} and {@link #failed} is called per message, on the parsing thread
+ * and before the parse call returns, so implementations must be thread safe and cheap. Header-only parses
+ * ({@link CEFParser#parseHeader(byte[])}) are not reported.
+ * <p>
+ * When {@link #isTimingEnabled()} is true, the parser reads the clock between stages and reports the nanoseconds
+ * spent tokenizing the message, converting header and extension values and validating the event. Stages that were
+ * not reached, and every stage when timing is disabled, report 0. Lazily decoded events are converted when read, so
+ * their conversion stage only covers the registration of the extensions.
+ */
+public interface ParserMetrics {
+    /**
+     * @return true if stage timings should be measured, which costs a few clock reads per message
+     */
+    default boolean isTimingEnabled() {
+        return false;
+    }
+
+    /**
+     * A message was turned into an event
+     *
+     * @param deviceVendor The device vendor header of the message
+     * @param tokenizeNanos Time spent tokenizing the message
+     * @param convertNanos Time spent converting header and extension values
+     * @param validateNanos Time spent validating the event
+     */
+    void parsed(String deviceVendor, long tokenizeNanos, long convertNanos, long validateNanos);
+
+    /**
+     * A message was rejected by the filter of the parser
+     *
+     * @param tokenizeNanos Time spent tokenizing the message, up to the rejecting condition
+     */
+    void rejected(long tokenizeNanos);
+
+    /**
+     * A message could not be turned into an event
+     *
+     * @param errorCode Reason of the failure, never {@link ErrorCode#REJECTED}
+     * @param deviceVendor The device vendor header of the message, or null if the header could not be read
+     * @param field Name of the offending header field or extension key, or null if unknown
+     * @param tokenizeNanos Time spent tokenizing the message
+     * @param convertNanos Time spent converting header and extension values
+     * @param validateNanos Time spent validating the event
+     */
+    void failed(ErrorCode errorCode, String deviceVendor, String field, long tokenizeNanos, long convertNanos, long validateNanos);
+
+    /**
+     * An extension outside of the CEF specification was found, called before the outcome of the message is reported
+     * and only if {@link #isCountingCustomExtensions()} is true
+     *
+     * @param key The extension key
+     */
+    default void customExtension(String key) {
+    }
+
+    /**
+     * @return true if {@link #customExtension(String)} should be called, false by default
+     */
+    default boolean isCountingCustomExtensions() {
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event of a message that took longer than the threshold to parse, 1 ms unless configured otherwise
+ * in the recording settings.
+ * <p>
+ * Events are only created while Flight Recorder is initialized and the event enabled, see
+ * {@link FlightRecorderEvents}.
+ */
+@Name("com.fluenda.parcefone.SlowParse")
+@Label("Slow CEF Parse")
+@Category({"ParCEFone", "Parser"})
+@Description("A CEF message that took longer than the threshold to parse")
+@Threshold("1 ms")
+@StackTrace(false)
+final class SlowParseEvent extends jdk.jfr.Event {
+    @Label("Device Vendor")
+    @Description("Device vendor header of the message, null if the header could not be read")
+    String deviceVendor;
+
+    @Label("Length")
+    @Description("Length of the message, in bytes for byte input and in characters for String input")
+    int length;
+
+    @Label("Error Code")
+    @Description("Reason why the message could not be parsed, null if it was parsed")
+    String errorCode;
+
+    @Label("Field")
+    @Description("Offending header field or extension key, null if unknown")
+    String field;
+
+    @Label("Validated")
+    boolean validated;
+
+    @Label("Lazy Decoding")
+    boolean lazy;
+}
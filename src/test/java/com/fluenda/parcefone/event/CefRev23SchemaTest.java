@@ -0,0 +1,99 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import com.fluenda.parcefone.event.CefRev23Schema.Extension;
+import com.fluenda.parcefone.event.CefRev23Schema.FieldType;
+import com.fluenda.parcefone.event.CefRev23Schema.Packed;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CefRev23SchemaTest {
+
+    @SuppressWarnings("unused")
+    private static final class Event {
+        private int version;
+        private String deviceVendor;
+        private String deviceProduct;
+        private String deviceVersion;
+        private String deviceEventClassId;
+        private String name;
+        private String severity;
+
+        @Extension
+        private int spt;
+
+        @Extension
+        @Packed(FieldType.DATE)
+        private long rt;
+
+        private int counter;
+        private long[] bits;
+        private double ratio;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Unsupported {
+        @Extension
+        private Date end;
+    }
+
+    @Test
+    public void markedFieldsTest() {
+        final CefRev23Schema schema = new CefRev23Schema(Event.class, MethodHandles.lookup());
+
+        assertEquals(7, schema.headers().length);
+        assertEquals(FieldType.INTEGER, schema.header("version").type);
+        assertEquals(FieldType.STRING, schema.header("severity").type);
+
+        assertEquals(2, schema.extensions().length);
+        assertEquals(FieldType.INTEGER, schema.extension("spt").type);
+        assertEquals(FieldType.DATE, schema.extension("rt").type);
+
+        // Unmarked fields are internal state whatever their type
+        assertNull(schema.extension("counter"));
+        assertNull(schema.extension("bits"));
+        assertNull(schema.extension("ratio"));
+    }
+
+    @Test
+    public void eventSchemaTest() {
+        final CefRev23Schema schema = CefRev23Schema.get();
+
+        assertNotNull(schema.extension("cn1"));
+        assertNotNull(schema.extension("dlat"));
+        assertNotNull(schema.extension("rt"));
+        assertNull(schema.extension("extensionBits"));
+        assertNull(schema.extension("timestamps"));
+        assertNull(schema.extension("dateLocale"));
+        assertFalse(Arrays.stream(schema.extensions()).anyMatch(accessor -> accessor.header));
+    }
+
+    @Test
+    public void unsupportedTypeTest() {
+        assertThrows(IllegalStateException.class, () -> new CefRev23Schema(Unsupported.class, MethodHandles.lookup()));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CefRev23Test {
+
+    @Test
+    public void floatingPointTest() throws Exception {
+        final String[] samples = {
+            "1", "-1", "+1.5", "1.", ".5", ".", "-", "", " 2.5 ", "1e10", "1E-3", "1e", "1e+", "1.5f", "1.5D", "f",
+            "NaN", "-Infinity", "Infinityf", "nan", "0x1p3", "0X1.8P-1d", "0x.8p1", "0x1", "0xp1", "0x", "1_000",
+            "12a", "1..2", "١٢", "１２", "0x1P", "1e5.5", "--1", "+-1", "1 2",
+        };
+        for (String sample : samples) {
+            assertEquals(isJavaDouble(sample), CefRev23.isFloatingPoint(sample), sample);
+        }
+
+        final char[] alphabet = "0123456789.eEpPxXfFdD+- NaIy".toCharArray();
+        final Random random = new Random(42);
+        final StringBuilder sample = new StringBuilder();
+        for (int n = 0; n < 200_000; n++) {
+            sample.setLength(0);
+            for (int i = random.nextInt(8); i >= 0; i--) {
+                sample.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertEquals(isJavaDouble(sample.toString()), CefRev23.isFloatingPoint(sample), sample.toString());
+        }
+    }
+
+    @Test
+    public void malformedFloatingPointTest() throws Exception {
+        final CefRev23 event = new CefRev23(Locale.ENGLISH);
+        event.setExtension("cfp1", "1.5e3", false);
+        event.setExtension("dlat", "-33.8688", false);
+        assertEquals(1500f, event.getExtension("cfp1"));
+        assertEquals(-33.8688, event.getExtension("dlat"));
+
+        final CEFHandlingException e = assertThrows(CEFHandlingException.class, () -> event.setExtension("cfp2", "1,5", false));
+        assertEquals(ErrorCode.BAD_NUMBER, e.getErrorCode());
+        assertEquals("cfp2", e.getField());
+        assertEquals(0, e.getStackTrace().length);
+        assertNull(e.getCause());
+        assertEquals(ErrorCode.BAD_NUMBER, assertThrows(CEFHandlingException.class, () -> event.setExtension("slong", "0x1", false)).getErrorCode());
+    }
+
+    private static boolean isJavaDouble(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompiledValidatorTest {
+
+    private static final String[][] EXTENSIONS = {
+        {"spt", "443"},
+        {"spt", "65536"},
+        {"dpt", ""},
+        {"deviceDirection", "1"},
+        {"deviceDirection", "-1"},
+        {"type", "4"},
+        {"proto", "TCP"},
+        {"proto", "xdp"},
+        {"proto", "tcp|udp"},
+        {"act", "blocked"},
+        {"act", "blockedblockedblockedblockedblockedblockedblockedblockedblockedbl"},
+        {"cs1", ""},
+    };
+
+    @Test
+    public void testMatchesBeanValidation() throws Exception {
+        final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        for (String[] extension : EXTENSIONS) {
+            final CefRev23 event = new CefRev23();
+            event.setExtension(extension[0], extension[1], true);
+            final boolean expected = validator.validate(event).isEmpty();
+            assertEquals(expected, CompiledValidator.get().isValid(event), extension[0] + "=" + extension[1]);
+        }
+    }
+
+    @Test
+    public void testViolation() throws Exception {
+        final CefRev23 event = new CefRev23();
+        assertNull(CompiledValidator.get().validate(event));
+
+        event.setExtension("spt", "70000", false);
+        event.setExtension("proto", "icmp", false);
+        final CompiledValidator.Violation violation = CompiledValidator.get().validate(event);
+        assertEquals("proto", violation.field());
+        assertEquals("must match \"tcp|udp\"", violation.message());
+
+        event.setExtension("proto", "udp", false);
+        assertEquals("spt must be less than or equal to 65535", CompiledValidator.get().validate(event).toString());
+
+        event.reset();
+        assertTrue(CompiledValidator.get().isValid(event));
+        event.setExtension("type", "3", false);
+        assertTrue(CompiledValidator.get().isValid(event));
+        event.setExtension("type", "-3", false);
+        assertFalse(CompiledValidator.get().isValid(event));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InetAddressParserTest {
+
+    private static final String[] VALID_ADDRESSES = {
+        "0.0.0.0",
+        "10.142.108.195",
+        "255.255.255.255",
+        "::",
+        "::1",
+        "1::",
+        "2001:cdba::3257:9652",
+        "2001:CDBA:0000:0000:0000:0000:3257:9652",
+        "fe80::1:2:3:4:5:6",
+        "1:2:3:4:5:6:7:8",
+        "::1.2.3.4",
+        "64:ff9b::192.0.2.33",
+        "1:2:3:4:5:6:1.2.3.4",
+        "[2001:db8::1]",
+    };
+
+    private static final String[] INVALID_ADDRESSES = {
+        "",
+        "localhost",
+        "www.example.com",
+        "1.2.3",
+        "1.2.3.4.5",
+        "256.1.1.1",
+        "1.2.3.4.",
+        ".1.2.3",
+        "1..2.3",
+        "0001.2.3.4",
+        "16909060",
+        "[1.2.3.4]",
+        ":",
+        ":::",
+        ":1::2",
+        "1::2::3",
+        "1:2:3:4:5:6:7:8:9",
+        "1:2:3:4:5:6:7",
+        "1:2:3:4:5:6:7::8",
+        "1:2:3:4:",
+        "12345::1",
+        "g::1",
+        "1:2:3:4:5:6:7:1.2.3.4",
+        "::1.2.3",
+        "::1.2.3.4:1",
+        "fe80::1%eth0",
+        "[::1",
+        // Fullwidth and other non-ASCII digits, refused by InetAddress
+        "2001:db8::\uff11",
+        "\uff26e80::1",
+        "2001:db8::\u0661",
+        "\uff11.2.3.4",
+    };
+
+    @Test
+    public void testValidAddresses() throws Exception {
+        for (String address : VALID_ADDRESSES) {
+            assertEquals(InetAddress.getByName(address), InetAddressParser.parse(address), address);
+        }
+        // Leading zeros are decimal, not octal
+        assertEquals(InetAddress.getByName("10.1.1.1"), InetAddressParser.parse("010.001.1.1"));
+    }
+
+    @Test
+    public void testInvalidAddresses() {
+        for (String address : INVALID_ADDRESSES) {
+            assertNull(InetAddressParser.parse(address), address);
+        }
+    }
+
+    @Test
+    public void testAddressFamilies() {
+        assertTrue(InetAddressParser.parse("192.168.0.1") instanceof Inet4Address);
+        assertTrue(InetAddressParser.parse("::192.168.0.1") instanceof Inet6Address);
+        assertTrue(InetAddressParser.parse("2001:db8::1") instanceof Inet6Address);
+
+        final InetAddress mapped = InetAddressParser.parse("::ffff:192.168.0.1");
+        assertTrue(mapped instanceof Inet4Address);
+        assertEquals("/192.168.0.1", mapped.toString());
+        assertTrue(InetAddressParser.parse("::FFFF:c0a8:1") instanceof Inet4Address);
+    }
+
+    @Test
+    public void testCachedAddresses() {
+        final InetAddress address = InetAddressParser.parse("172.16.1.10");
+        assertSame(address, InetAddressParser.parse(new StringBuilder("172.16.1.10")));
+        assertEquals(InetAddressParser.parse("172.16.1.11").toString(), "/172.16.1.11");
+    }
+}
@@ -129,4 +129,13 @@ public class MacAddressTest {
         final int comparison = macAddress.compareTo(new MacAddress(LOCAL_ADDRESS));
         assertNotEquals(0, comparison);
     }
+
+    @Test
+    public void testAddressPacked() {
+        final long packed = MacAddress.parse(" " + HYPHEN_SEPARATOR + " ");
+        assertEquals(0x00ff00ff00ffL, packed);
+        assertEquals(new MacAddress(NORMALIZED_ADDRESS), new MacAddress(packed));
+        assertEquals(-1, MacAddress.parse(INVALID_LENGTH));
+        assertEquals(-1, MacAddress.parse("00:ff:00:ff:00:fg"));
+    }
 }
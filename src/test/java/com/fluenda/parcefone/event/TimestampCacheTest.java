@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.text.ParseException;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TimestampCacheTest {
+
+    @Test
+    public void testCapacity() {
+        assertEquals(TimestampCache.DEFAULT_CAPACITY, new TimestampCache().capacity());
+        assertEquals(1, new TimestampCache(1).capacity());
+        assertEquals(64, new TimestampCache(64).capacity());
+        assertEquals(128, new TimestampCache(65).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TimestampCache(0));
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        final TimestampCache cache = new TimestampCache(16);
+        final TimestampParser parser = TimestampParser.forLocale(Locale.ENGLISH);
+
+        assertEquals(1423441663000L, cache.parse(parser, "Feb 09 2015 00:27:43 UTC"));
+        assertEquals(1423441663000L, cache.parse(parser, new StringBuilder("Feb 09 2015 00:27:43 UTC")));
+        assertEquals(1423441664000L, cache.parse(parser, "Feb 09 2015 00:27:44 UTC"));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+
+        cache.clear();
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.misses());
+    }
+
+    @Test
+    public void testLocales() throws Exception {
+        final TimestampCache cache = new TimestampCache(1);
+        assertEquals(1423441663000L, cache.parse(TimestampParser.forLocale(Locale.US), "Feb 09 2015 00:27:43 UTC"));
+        assertThrows(ParseException.class, () -> cache.parse(TimestampParser.forLocale(Locale.FRANCE), "Feb 09 2015 00:27:43 UTC"));
+        assertThrows(ParseException.class, () -> cache.parse(TimestampParser.forLocale(Locale.FRANCE), "Feb 09 2015 00:27:43 UTC"));
+        assertEquals(0, cache.hits());
+        assertEquals(3, cache.misses());
+    }
+}
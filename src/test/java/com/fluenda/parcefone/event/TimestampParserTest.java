@@ -0,0 +1,109 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.fluenda.parcefone.event;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TimestampParserTest {
+
+    private static final String[] INVALID_TIMESTAMPS = {
+        "",
+        "Wrong Date Format",
+        "Feb 09 2015",
+        "Feb 9 2015 00:27:43",
+        "Feb 09 2015 30:27:43",
+        "Feb 09 2015 00:60:43",
+        "Feb 09 2015 00:27:4",
+        "Feb 09 2015 00:27:43.12",
+        "Feb 09 2015 00:27:43 ",
+        "Feb 09 2015 00:27:43 UTC+1",
+        "Feb 09 2015 00:27:43 NOWHERE",
+        "Fev 09 2015 00:27:43",
+        "Feb. 09 2015 00:27:43",
+        "12:00:00",
+        "1436401663000L",
+    };
+
+    @Test
+    public void testEpoch() throws Exception {
+        final TimestampParser parser = TimestampParser.forLocale(Locale.ENGLISH);
+        assertEquals(1436401663000L, parser.parse("1436401663000"));
+        assertEquals(-1L, parser.parse("-1"));
+    }
+
+    @Test
+    public void testFormatsWithTimeZone() throws Exception {
+        final TimestampParser parser = TimestampParser.forLocale(Locale.ENGLISH);
+        assertEquals(1423441663000L, parser.parse("Feb 09 2015 00:27:43 UTC"));
+        assertEquals(1423441663123L, parser.parse("Feb 09 2015 00:27:43.123 UTC"));
+        assertEquals(1423441663000L, parser.parse("feb 09 2015 00:27:43 gmt"));
+        assertEquals(1423441663000L, parser.parse("February 09 2015 00:27:43 UTC"));
+        assertEquals(1423441663000L + 8 * 3600_000L, parser.parse("Feb 09 2015 00:27:43 PST"));
+        assertEquals(1423441663000L + 7 * 3600_000L, parser.parse("Feb 09 2015 00:27:43 PDT"));
+        assertEquals(1423441663000L - 3600_000L, parser.parse("Feb 09 2015 00:27:43 CET"));
+
+        final int year = Calendar.getInstance().get(Calendar.YEAR);
+        assertEquals(new SimpleDateFormat("yyyy MMM dd HH:mm:ss zzz", Locale.ENGLISH).parse(year + " Feb 09 00:27:43 UTC").getTime(),
+                parser.parse("Feb 09 00:27:43 UTC"));
+        assertEquals(new SimpleDateFormat("yyyy MMM dd HH:mm:ss.SSS zzz", Locale.ENGLISH).parse(year + " Feb 09 00:27:43.500 UTC").getTime(),
+                parser.parse("Feb 09 00:27:43.500 UTC"));
+    }
+
+    @Test
+    public void testFormatsWithoutTimeZone() throws Exception {
+        final TimestampParser parser = TimestampParser.forLocale(Locale.ENGLISH);
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy MMM dd HH:mm:ss.SSS", Locale.ENGLISH);
+        final int year = Calendar.getInstance().get(Calendar.YEAR);
+
+        assertEquals(format.parse("2015 Jul 09 00:27:43.000").getTime(), parser.parse("Jul 09 2015 00:27:43"));
+        assertEquals(format.parse("2015 Jul 09 00:27:43.999").getTime(), parser.parse("Jul 09 2015 00:27:43.999"));
+        assertEquals(format.parse(year + " Jul 09 00:27:43.000").getTime(), parser.parse("Jul 09 00:27:43"));
+        assertEquals(format.parse(year + " Jul 09 00:27:43.010").getTime(), parser.parse("Jul\t09 00:27:43.010"));
+    }
+
+    @Test
+    public void testLenientFields() throws Exception {
+        final TimestampParser parser = TimestampParser.forLocale(Locale.ENGLISH);
+        assertEquals(parser.parse("Mar 02 2015 00:00:00 UTC"), parser.parse("Feb 30 2015 00:00:00 UTC"));
+        assertEquals(parser.parse("Jan 31 2015 00:00:00 UTC"), parser.parse("Feb 00 2015 00:00:00 UTC"));
+        assertEquals(parser.parse("Feb 10 2015 04:00:00 UTC"), parser.parse("Feb 09 2015 28:00:00 UTC"));
+    }
+
+    @Test
+    public void testLocales() throws Exception {
+        assertEquals(1436401663000L, TimestampParser.forLocale(Locale.FRANCE).parse("juil. 09 2015 00:27:43 UTC"));
+        assertEquals(1436401663000L, TimestampParser.forLocale(Locale.FRANCE).parse("JUILLET 09 2015 00:27:43 UTC"));
+        assertEquals(1423441663000L, TimestampParser.forLocale(Locale.GERMAN).parse("Feb. 09 2015 00:27:43 UTC"));
+        assertSame(TimestampParser.forLocale(Locale.FRANCE), TimestampParser.forLocale(Locale.FRANCE));
+    }
+
+    @Test
+    public void testInvalidTimestamps() {
+        final TimestampParser parser = TimestampParser.forLocale(Locale.ENGLISH);
+        for (String timestamp : INVALID_TIMESTAMPS) {
+            assertThrows(ParseException.class, () -> parser.parse(timestamp), timestamp);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CefRev23;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of the parse path.
+ * <p>
+ * Each test parses a fixed corpus after a warm up long enough for the parse path to be compiled, and fails when the
+ * average number of bytes allocated per message, as counted by {@link com.sun.management.ThreadMXBean}, exceeds the
+ * budget of its message type.
+ * <p>
+ * Budgets are multiples of a baseline measured on the running JVM, the allocation of decoding each message into a
+ * String, which no parse can avoid. The event itself is left out of the baseline and checked against a fixed ceiling
+ * instead, so that a growing event shows up rather than cancelling out.
+ * <p>
+ * Escape analysis, object layouts and String compaction differ between JDK releases, so the figures are only
+ * meaningful on the release they were calibrated on and the tests are skipped on any other. A change that needs a
+ * larger budget should justify it in review. The tests are also skipped on JVMs without allocation counters, or with
+ * <code>-Dparcefone.skipAllocationBudgets=true</code>.
+ */
+public class AllocationBudgetTest {
+    // Feature release of the JDK the budgets were calibrated on, CI runs these tests on the same release
+    private static final int CALIBRATION_RELEASE = 17;
+
+    // Allocation per message relative to the baseline. Measured ratios are 11.25, 5.79, 6.03 and 2.24, the budgets
+    // leave about 25% of headroom
+    private static final double HEADER_ONLY_BUDGET = 14.0;
+    private static final double FIREWALL_BUDGET = 7.25;
+    private static final double DATE_HEAVY_BUDGET = 7.5;
+    private static final double PARSE_INTO_BUDGET = 2.8;
+
+    // Bytes allocated by an empty event, measured at 824
+    private static final long EVENT_CEILING = 840;
+
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    private static final String[] HEADER_ONLY = {
+        "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|",
+        "CEF:0|Palo Alto Networks|PAN-OS|10.2.4|TRAFFIC|end|3|",
+        "<134>Oct 17 10:00:00 fw-edge-1 CEF:0|Fortinet|FortiGate|7.4.1|100|Drop|5|",
+    };
+
+    private static final String[] FIREWALL = {
+        "CEF:0|Palo Alto Networks|PAN-OS|10.2.4|TRAFFIC|end|3|rt=1735689600000 src=10.0.8.251 spt=58292 dst=25.154.239.221 dpt=443 proto=TCP "
+                + "act=allowed suser=svc_backup in=785690 out=62919 cs1=allow-web cs1Label=Rule deviceExternalId=SN100001",
+        "CEF:0|Fortinet|FortiGate|7.4.1|100|Drop|5|rt=1735689601000 src=192.168.3.7 spt=51000 dst=10.1.2.3 dpt=22 proto=UDP "
+                + "act=blocked smac=94:1a:ff:68:bb:4f cnt=3 msg=Policy rule\\=deny-ssh matched",
+        "<134>Oct 17 10:00:00 fw-edge-1 CEF:0|Check Point|VPN-1 & FireWall-1|R81.20|DM|domain-match|7|src=172.16.0.9 dst=8.8.8.8 dpt=53 "
+                + "proto=udp act=dropped request=http://updates.example.net/download?id\\=42",
+    };
+
+    private static final String[] DATE_HEAVY = {
+        "CEF:0|CrowdStrike|FalconHost|1.0|TRAFFIC|end|1|rt=Jan 01 2025 00:00:00 GMT start=1735689600000 end=Jan 01 00:00:00.000 "
+                + "art=Jan 01 2025 00:00:00 deviceCustomDate1=Jan 01 00:00:01.000 fileCreateTime=Feb 03 2025 05:40:10 GMT act=blocked",
+        "CEF:0|Zscaler|NSSWeblog|6.2|THREAT|url|3|rt=Aug 08 2025 16:14:13 start=Aug 08 2025 14:37:55 GMT end=1765966310000 "
+                + "fileModificationTime=May 27 06:16:57.000 act=allowed",
+    };
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    // Keeps the baseline allocations reachable, so that they are not eliminated by escape analysis
+    private static volatile Object sink;
+
+    @BeforeAll
+    public static void setup() {
+        assumeFalse(Boolean.getBoolean("parcefone.skipAllocationBudgets"), "Allocation budgets are disabled");
+        assumeTrue(Runtime.version().feature() == CALIBRATION_RELEASE,
+                "Allocation budgets are calibrated on JDK " + CALIBRATION_RELEASE + " only");
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation counters are not available on this JVM");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Allocation counters are not supported on this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void eventTest() {
+        final long perEvent = allocationPerMessage(encode(HEADER_ONLY), message -> sink = new CefRev23());
+        assertTrue(perEvent <= EVENT_CEILING, "An empty event allocates " + perEvent + " bytes, over the ceiling of " + EVENT_CEILING + " bytes");
+    }
+
+    @Test
+    public void headerOnlyTest() {
+        final CEFParser parser = new CEFParser();
+        assertBudget("header only", HEADER_ONLY_BUDGET, encode(HEADER_ONLY), message -> assertNotNull(parser.parse(message)));
+    }
+
+    @Test
+    public void firewallTest() {
+        final CEFParser parser = new CEFParser();
+        assertBudget("firewall", FIREWALL_BUDGET, encode(FIREWALL), message -> assertNotNull(parser.parse(message)));
+    }
+
+    @Test
+    public void dateHeavyTest() {
+        final CEFParser parser = new CEFParser();
+        assertBudget("date heavy", DATE_HEAVY_BUDGET, encode(DATE_HEAVY), message -> assertNotNull(parser.parse(message)));
+    }
+
+    @Test
+    public void parseIntoTest() {
+        final CEFParser parser = new CEFParser();
+        final CefRev23 target = new CefRev23();
+        assertBudget("firewall parsed into a reused event", PARSE_INTO_BUDGET, encode(FIREWALL),
+                message -> assertTrue(parser.parseInto(message, target)));
+    }
+
+    private static void assertBudget(String type, double budget, byte[][] corpus, Consumer<byte[]> parse) {
+        final long baseline = allocationPerMessage(corpus, message -> {
+            sink = new String(message, StandardCharsets.UTF_8);
+        });
+        final long perMessage = allocationPerMessage(corpus, parse);
+
+        final long limit = (long) (baseline * budget);
+        assertTrue(perMessage <= limit, type + " messages allocate " + perMessage + " bytes each, over the budget of " + limit
+                + " bytes (" + budget + " times the baseline of " + baseline + " bytes)");
+    }
+
+    private static long allocationPerMessage(byte[][] corpus, Consumer<byte[]> parse) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            parse.accept(corpus[round % corpus.length]);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            parse.accept(corpus[round % corpus.length]);
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_ROUNDS;
+    }
+
+    private static byte[][] encode(String[] messages) {
+        final byte[][] encoded = new byte[messages.length][];
+        for (int i = 0; i < messages.length; i++) {
+            encoded[i] = messages[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CommonEvent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CEFBulkParserTest {
+
+    private static final int LINES = 2000;
+
+    @TempDir
+    Path directory;
+
+    private static String line(int i) {
+        if (i % 100 == 99) {
+            return "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http";
+        }
+        return "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3=" + i + " msg=Accès refusé";
+    }
+
+    private Path writeFile() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append(line(i)).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        final Path file = directory.resolve("events.cef");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void releasesMappingTest() throws Exception {
+        final BufferPoolMXBean mapped = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "mapped".equals(pool.getName()))
+                .findFirst().orElseThrow();
+        final long mappedBefore = mapped.getCount();
+
+        final Path file = writeFile();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final CEFBulkParser bulkParser = new CEFBulkParser(new CEFParser())
+                    .withPool(pool)
+                    .withChunkSize(1000)
+                    .withSegmentSize(16 * 1024);
+            assertEquals(LINES - LINES / 100, bulkParser.parse(file, false, event -> { }));
+
+            // The workers are still alive, none of them may keep a segment reachable from its parsing scratch state
+            for (int i = 0; i < 50 && mapped.getCount() > mappedBefore; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertTrue(mapped.getCount() <= mappedBefore, mapped.getCount() - mappedBefore + " segments are still mapped");
+            Files.delete(file);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void orderedTest() throws Exception {
+        final Path file = writeFile();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Queue<Long> failedOffsets = new ConcurrentLinkedQueue<>();
+            final CEFBulkParser bulkParser = new CEFBulkParser(new CEFParser())
+                    .withPool(pool)
+                    .withChunkSize(1000)
+                    .withSegmentSize(16 * 1024)
+                    .withFailureListener((offset, line) -> failedOffsets.add(offset));
+
+            final List<CommonEvent> events = new ArrayList<>();
+            assertEquals(LINES - LINES / 100, bulkParser.parse(file, true, events::add));
+
+            assertEquals(LINES - LINES / 100, events.size());
+            int expected = 0;
+            for (CommonEvent event : events) {
+                if (expected % 100 == 99) {
+                    expected++;
+                }
+                assertEquals((long) expected++, event.getExtension("cn3"));
+                assertEquals("Accès refusé", event.getExtension("msg"));
+            }
+
+            assertEquals(LINES / 100, failedOffsets.size());
+            final byte[] bytes = Files.readAllBytes(file);
+            for (long offset : failedOffsets) {
+                assertEquals(line(99), new String(bytes, (int) offset, line(99).length(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void unorderedTest() throws Exception {
+        final Path file = writeFile();
+        final Queue<CommonEvent> events = new ConcurrentLinkedQueue<>();
+
+        final long count = new CEFBulkParser(new CEFParser()).withChunkSize(4096).parse(file, false, events::add);
+
+        assertEquals(LINES - LINES / 100, count);
+        long sum = 0;
+        for (CommonEvent event : events) {
+            sum += (Long) event.getExtension("cn3");
+        }
+        long expected = 0;
+        for (int i = 0; i < LINES; i++) {
+            expected += i % 100 == 99 ? 0 : i;
+        }
+        assertEquals(expected, sum);
+    }
+
+    @Test
+    public void lineLongerThanSegmentTest() throws Exception {
+        final Path file = writeFile();
+        final CEFBulkParser bulkParser = new CEFBulkParser(new CEFParser()).withSegmentSize(64);
+        assertThrows(IOException.class, () -> bulkParser.parse(file, true, event -> { }));
+    }
+}
@@ -16,24 +16,40 @@
  */
 package com.fluenda.parcefone.parser;
 
+import com.fluenda.parcefone.event.CEFHandlingException;
+import com.fluenda.parcefone.event.CefRev23;
 import com.fluenda.parcefone.event.CommonEvent;
+import com.fluenda.parcefone.event.ErrorCode;
+import com.fluenda.parcefone.event.ExtensionProjection;
+import com.fluenda.parcefone.event.LazyCefRev23;
 import com.fluenda.parcefone.event.MacAddress;
+import com.fluenda.parcefone.event.TimestampCache;
 
 import org.junit.jupiter.api.Test;
 
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CEFParserTest {
@@ -197,6 +213,52 @@ public class CEFParserTest {
         assertNull(parser.parse(sample1Array, true, Locale.FRANCE).getExtension(true).get("act"));
     }
 
+    @Test
+    public void byteArraySliceAndByteBufferTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3Label=cncPort cn3=53 spt=61395 dvc=10.100.25.16 smac=00:00:0c:07:ac:00 cs1Label=sname cs1=Trojan.Generic.DNS";
+        CEFParser parser = new CEFParser();
+
+        byte[] sample1Array = sample1.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[sample1Array.length + 10];
+        System.arraycopy(sample1Array, 0, padded, 5, sample1Array.length);
+
+        CommonEvent result = parser.parse(padded, 5, sample1Array.length, true, false, Locale.ENGLISH);
+        assertNotNull(result);
+        assertEquals("FireEye", result.getHeader().get("deviceVendor"));
+        assertEquals(new Date(1423441663000L), result.getExtension(true).get("rt"));
+        assertEquals(53L, result.getExtension(true).get("cn3"));
+        assertEquals(61395, result.getExtension(true).get("spt"));
+        assertEquals(InetAddress.getByName("10.100.25.16"), result.getExtension(true).get("dvc"));
+        assertEquals("Trojan.Generic.DNS", result.getExtension(true).get("cs1"));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(sample1Array.length + 4);
+        direct.put(new byte[4]).put(sample1Array).flip().position(4);
+        result = parser.parse(direct, true, false, Locale.ENGLISH);
+        assertNotNull(result);
+        assertEquals(4, direct.position());
+        assertEquals("domain-match", result.getHeader().get("name"));
+        assertEquals(new Date(1423441663000L), result.getExtension(true).get("rt"));
+        assertEquals(new MacAddress("00:00:0c:07:ac:00"), result.getExtension(true).get("smac"));
+
+        result = parser.parse(ByteBuffer.wrap(padded, 5, sample1Array.length));
+        assertNotNull(result);
+        assertEquals("cncPort", result.getExtension(true).get("cn3Label"));
+    }
+
+    @Test
+    public void nonAsciiByteArrayTest() throws Exception {
+        String sample1 = "CEF:0|Fournisseur|Pare-feu \\| réseau|1.0|100|Détection|10|rt=févr. 09 2015 00:27:43 UTC msg=Accès refusé à l'utilisateur spt=443";
+        CEFParser parser = new CEFParser();
+
+        CommonEvent result = parser.parse(sample1.getBytes(StandardCharsets.UTF_8), true, Locale.FRANCE);
+        assertNotNull(result);
+        assertEquals("Pare-feu \\| réseau", result.getHeader().get("deviceProduct"));
+        assertEquals("Détection", result.getHeader().get("name"));
+        assertEquals(new Date(1423441663000L), result.getExtension(true).get("rt"));
+        assertEquals("Accès refusé à l'utilisateur", result.getExtension(true).get("msg"));
+        assertEquals(443, result.getExtension(true).get("spt"));
+    }
+
     @Test
     public void validStringMessageWithLocaleAndValidationTest() throws Exception {
         String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=1436401663000 cn3Label=cncPort cn3=53 cn2Label=sid cn2=80494706 shost=dev001srv02.example.com proto=udp cs5Label=cncHost cs5=mfdclk001.org dvchost=DEVFEYE1 spt=61395 dvc=10.100.25.16 smac=00:00:0c:07:ac:00 cn1Label=vlan cn1=0 externalId=851777 cs4Label=link cs4=https://DEVCMS01.example.com/event_stream/events_for_bot?ev_id\\=851777 dmac=00:1d:a2:af:32:a1 cs1Label=sname cs1=Trojan.Generic.DNS ";
@@ -292,6 +354,469 @@ public class CEFParserTest {
         assertEquals(InetAddress.getByName("10.100.25.16"), parser.parse(sample1).getExtension(true).get("dvc"));
         assertTrue(parser.parse(sample1).getExtension(false).containsKey("act"));
         assertNull(parser.parse(sample1).getExtension(false).get("act"));
+        assertFalse(parser.parse(sample1).getExtension(false).containsKey("name"));
+        assertFalse(parser.parse(sample1).getExtension(false).containsKey("dateLocale"));
+    }
+
+    @Test
+    public void lazyDecodingTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3Label=cncPort cn3=53 spt=61395 dvc=10.100.25.16 smac=00:00:0c:07:ac:00 spt=1234 modelConfidence=0 cs1=Trojan.Generic.DNS";
+        String sample2 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http dvc=10.100.25.16";
+
+        CEFParser eagerParser = new CEFParser();
+        CEFParser lazyParser = eagerParser.withLazyDecoding(true);
+
+        CommonEvent result = lazyParser.parse(sample1.getBytes(StandardCharsets.UTF_8));
+        assertTrue(result instanceof LazyCefRev23);
+        assertEquals("FireEye", result.getHeader().get("deviceVendor"));
+        assertEquals(InetAddress.getByName("10.100.25.16"), result.getExtension("dvc"));
+        assertEquals(1234, result.getExtension("spt"));
+        assertEquals("0", result.getExtension("modelConfidence"));
+        assertNull(result.getExtension("act"));
+        assertEquals(eagerParser.parse(sample1).getExtension(true, true), result.getExtension(true, true));
+
+        // Conversion errors surface when the value is read
+        result = lazyParser.parse(sample2);
+        assertNotNull(result);
+        assertEquals(InetAddress.getByName("10.100.25.16"), result.getExtension("dvc"));
+        final CommonEvent invalid = result;
+        assertThrows(CEFHandlingException.class, () -> invalid.getExtension("spt"));
+
+        // Or when parsing with validation
+        assertNull(lazyParser.parse(sample2, true));
+    }
+
+    @Test
+    public void timestampCacheTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC end=Feb 09 2015 00:27:43 UTC cn3=53 dvc=10.100.25.16";
+        String sample2 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=juil. 09 2015 00:27:43 UTC";
+
+        TimestampCache cache = new TimestampCache();
+        CEFParser parser = new CEFParser().withTimestampCache(cache);
+
+        CommonEvent result = parser.parse(sample1.getBytes(StandardCharsets.UTF_8));
+        assertEquals(new Date(1423441663000L), result.getExtension("rt"));
+        assertEquals(new Date(1423441663000L), result.getExtension("end"));
+        assertEquals(new Date(1423441663000L), parser.parse(sample1).getExtension("rt"));
+        assertEquals(1, cache.misses());
+        assertEquals(3, cache.hits());
+
+        // The same text is cached separately per locale
+        assertEquals(new Date(1436401663000L), parser.parse(sample2, false, Locale.FRANCE).getExtension("rt"));
+        assertNull(parser.parse(sample2, false, Locale.ENGLISH));
+        assertEquals(3, cache.misses());
+
+        // Lazy events share the cache
+        assertEquals(new Date(1423441663000L), parser.withLazyDecoding(true).parse(sample1).getExtension("end"));
+        assertEquals(4, cache.hits());
+    }
+
+    @Test
+    public void parseAllTest() throws Exception {
+        final List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(i % 10 == 9
+                    ? "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http"
+                    : "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3=" + i);
+        }
+        final List<byte[]> byteSamples = new ArrayList<>();
+        for (String sample : samples) {
+            byteSamples.add(sample.getBytes(StandardCharsets.UTF_8));
+        }
+
+        CEFParser parser = new CEFParser();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<CommonEvent> fromBytes = parser.parseAll(byteSamples, true, false, Locale.ENGLISH, executor);
+            final List<CommonEvent> fromStrings = parser.parseAll(samples);
+            assertEquals(samples.size(), fromBytes.size());
+            assertEquals(samples.size(), fromStrings.size());
+            for (int i = 0; i < samples.size(); i++) {
+                if (i % 10 == 9) {
+                    assertNull(fromBytes.get(i));
+                    assertNull(fromStrings.get(i));
+                } else {
+                    assertEquals((long) i, fromBytes.get(i).getExtension("cn3"));
+                    assertEquals(fromBytes.get(i).getExtension(true, true), fromStrings.get(i).getExtension(true, true));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(parser.parseAll(new ArrayList<byte[]>()).isEmpty());
+    }
+
+    @Test
+    public void tryParseAllTest() throws Exception {
+        final List<String> samples = Arrays.asList(
+                "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|cn3=53",
+                "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http",
+                "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|proto=ICMP",
+                "CEF:0|Check Point|VPN-1|R81.20|100|Drop|5|cn3=53",
+                "CEF:0|FireEye|CMS");
+        final List<byte[]> byteSamples = new ArrayList<>();
+        for (String sample : samples) {
+            byteSamples.add(sample.getBytes(StandardCharsets.UTF_8));
+        }
+
+        final CEFParser parser = new CEFParser().withFilter(EventFilter.headerEquals("deviceVendor", "FireEye"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<ParseResult> fromBytes = parser.tryParseAll(byteSamples, true, false, Locale.ENGLISH, executor);
+            final List<ParseResult> fromStrings = parser.tryParseAll(samples, true, false, Locale.ENGLISH, executor);
+            for (List<ParseResult> results : Arrays.asList(fromBytes, fromStrings)) {
+                assertEquals(samples.size(), results.size());
+                assertTrue(results.get(0).isSuccess());
+                assertEquals(53L, results.get(0).event().getExtension("cn3"));
+                assertEquals(ErrorCode.BAD_NUMBER, results.get(1).errorCode());
+                assertEquals("spt", results.get(1).field());
+                assertEquals(ErrorCode.CONSTRAINT_VIOLATION, results.get(2).errorCode());
+                assertEquals(ErrorCode.REJECTED, results.get(3).errorCode());
+                assertEquals(ErrorCode.BAD_HEADER, results.get(4).errorCode());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(parser.tryParseAll(new ArrayList<byte[]>()).isEmpty());
+    }
+
+    @Test
+    public void sharedParserTest() throws Exception {
+        final CEFParser parser = new CEFParser();
+        final String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3=53 dvc=10.100.25.16 msg=Accès refusé";
+        final Map<String, Object> expected = parser.parse(sample1, true).getExtension(true, true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final boolean useBytes = t % 2 == 0;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        final CommonEvent event = useBytes
+                                ? parser.parse(sample1.getBytes(StandardCharsets.UTF_8), true)
+                                : parser.parse(sample1, true);
+                        if (!expected.equals(event.getExtension(true, true))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parseIntoTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=juil. 09 2015 00:27:43 UTC cn3=53 dvc=10.100.25.16 customKey=value";
+        String sample2 = "CEF:0|Fournisseur|Pare-feu|1.0|100|Détection|10|spt=443 msg=Accès refusé";
+        String sample3 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http";
+
+        CEFParser parser = new CEFParser();
+        CefRev23 event = new CefRev23(Locale.FRANCE);
+
+        assertTrue(parser.parseInto(sample1.getBytes(StandardCharsets.UTF_8), event));
+        assertEquals(new Date(1436401663000L), event.getExtension("rt"));
+        assertEquals(53L, event.getExtension("cn3"));
+        assertEquals("value", event.getExtension("customKey"));
+        assertEquals(parser.parse(sample1, false, Locale.FRANCE).getExtension(true, true), event.getExtension(true, true));
+
+        assertTrue(parser.parseInto(ByteBuffer.wrap(sample2.getBytes(StandardCharsets.UTF_8)), event, true, false));
+        assertEquals("Fournisseur", event.getHeader().get("deviceVendor"));
+        assertEquals(parser.parse(sample2).getExtension(true, true), event.getExtension(true, true));
+        assertNull(event.getExtension("rt"));
+        assertNull(event.getExtension("customKey"));
+
+        assertFalse(parser.parseInto(sample3.getBytes(StandardCharsets.UTF_8), event));
+        assertFalse(parser.parseInto(sample2.getBytes(StandardCharsets.UTF_8), 0, 20, event, false, false));
+
+        event.reset();
+        assertTrue(event.getExtension(true, true).isEmpty());
+        assertNull(event.getHeader().get("deviceVendor"));
+
+        // Recycled lazy events are populated eagerly
+        LazyCefRev23 lazyEvent = (LazyCefRev23) parser.withLazyDecoding(true).parse(sample2, false, Locale.FRANCE);
+        assertTrue(parser.parseInto(sample1.getBytes(StandardCharsets.UTF_8), lazyEvent));
+        assertEquals(53L, lazyEvent.getExtension("cn3"));
+        assertNull(lazyEvent.getExtension("spt"));
+    }
+
+    @Test
+    public void compactStorageTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=0 dpt= dst=10.100.25.16 smac=00:00:0c:07:ac:00 cfp1=1.5 rt=1436401663000";
+        String sample2 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|dpt=80";
+
+        CEFParser parser = new CEFParser();
+        CefRev23 event = new CefRev23();
+
+        assertTrue(parser.parseInto(sample1.getBytes(StandardCharsets.UTF_8), 0, sample1.length(), event, true, true));
+        Map<String, Object> extensions = event.getExtension(true);
+        assertEquals(6, extensions.size());
+        assertEquals(0, extensions.get("spt"));
+        assertTrue(extensions.containsKey("dpt"));
+        assertNull(extensions.get("dpt"));
+        assertEquals(InetAddress.getByName("10.100.25.16"), event.getExtension("dst"));
+        assertEquals(new MacAddress("00:00:0c:07:ac:00"), event.getExtension("smac"));
+        assertEquals(1.5f, event.getExtension("cfp1"));
+        assertEquals(new Date(1436401663000L), event.getExtension("rt"));
+        assertNull(event.getExtension("src"));
+        assertNull(event.getExtension("cn1"));
+
+        // Fields of a recycled event are not carried over
+        assertTrue(parser.parseInto(sample2.getBytes(StandardCharsets.UTF_8), event));
+        assertEquals(Map.of("dpt", 80), event.getExtension(true));
+        assertNull(event.getExtension("spt"));
+        assertNull(event.getExtension(false).get("rt"));
+    }
+
+    @Test
+    public void syslogHeaderTest() throws Exception {
+        String sample1 = "<134>Oct  7 10:00:00 fw01 CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=443";
+        String sample2 = "<134>1 2015-07-09T00:27:43.000Z fw01.example.com cef - - - CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=443";
+        String sample3 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=443";
+
+        CEFParser parser = new CEFParser();
+
+        CefRev23 event = (CefRev23) parser.parse(sample1.getBytes(StandardCharsets.UTF_8));
+        assertEquals("<134>Oct  7 10:00:00 fw01", event.getSyslogHeader());
+        assertEquals(134, event.getSyslogPriority());
+        assertEquals("fw01", event.getSyslogHostname());
+        final int year = Calendar.getInstance().get(Calendar.YEAR);
+        assertEquals(new SimpleDateFormat("yyyy MMM dd HH:mm:ss", Locale.ENGLISH).parse(year + " Oct 07 10:00:00"), event.getSyslogTimestamp());
+        assertEquals(0, event.getHeader().get("version"));
+        assertEquals("FireEye", event.getHeader().get("deviceVendor"));
+        assertEquals(443, event.getExtension("spt"));
+
+        event = (CefRev23) parser.withLazyDecoding(true).parse(sample2);
+        assertEquals(134, event.getSyslogPriority());
+        assertEquals("fw01.example.com", event.getSyslogHostname());
+        assertEquals(new Date(1436401663000L), event.getSyslogTimestamp());
+
+        // The header is read after the caller has reused its buffer
+        byte[] buffer = "<134>Oct  7 10:00:00 pare-feu-été CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=443".getBytes(StandardCharsets.UTF_8);
+        event = (CefRev23) parser.parse(buffer);
+        Arrays.fill(buffer, (byte) 'x');
+        assertEquals("<134>Oct  7 10:00:00 pare-feu-été", event.getSyslogHeader());
+        assertEquals("pare-feu-été", event.getSyslogHostname());
+
+        event = (CefRev23) parser.parse(sample1);
+        assertEquals("<134>Oct  7 10:00:00 fw01", event.getSyslogHeader());
+        assertEquals("fw01", event.getSyslogHostname());
+
+        assertTrue(parser.parseInto(sample3.getBytes(StandardCharsets.UTF_8), event));
+        assertNull(event.getSyslogHeader());
+        assertNull(event.getSyslogPriority());
+        assertNull(event.getSyslogTimestamp());
+        assertNull(event.getSyslogHostname());
+    }
+
+    @Test
+    public void projectionTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|src=10.0.0.1 spt=http dst=10.0.0.2 dpt=443 act=notified customKey=value";
+
+        CEFParser parser = new CEFParser().withProjection(Arrays.asList("src", "dst", "dpt"), false);
+
+        CommonEvent event = parser.parse(sample1.getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> extensions = event.getExtension(true, true);
+        assertEquals(3, extensions.size());
+        assertEquals(InetAddress.getByName("10.0.0.1"), extensions.get("src"));
+        assertEquals(443, extensions.get("dpt"));
+        assertEquals("FireEye", event.getHeader().get("deviceVendor"));
+
+        event = parser.withLazyDecoding(true).parse(sample1);
+        assertEquals(3, event.getExtension(true, true).size());
+        assertNull(event.getExtension("act"));
+
+        event = parser.withProjection(Arrays.asList("act"), true).parse(sample1, true);
+        assertEquals(Map.of("act", "notified", "customKey", "value"), event.getExtension(true, true));
+
+        // The malformed spt is only converted once the projection is removed
+        assertNull(parser.withProjection(null, false).parse(sample1));
+        assertThrows(IllegalArgumentException.class, () -> parser.withProjection(Arrays.asList("src", "customKey"), true));
+
+        // Keys are resolved once into ordinals, custom extensions having none
+        ExtensionProjection projection = ExtensionProjection.of(Arrays.asList("src", "dpt"), false);
+        assertTrue(projection.includes(CefRev23.extensionOrdinal(sample1, sample1.indexOf("src"), sample1.indexOf("=10.0.0.1"))));
+        assertFalse(projection.includes(CefRev23.extensionOrdinal("dst", 0, 3)));
+        assertEquals(-1, CefRev23.extensionOrdinal(sample1, sample1.indexOf("customKey"), sample1.indexOf("=value")));
+        assertFalse(projection.includes(-1));
+        assertTrue(ExtensionProjection.of(Arrays.asList("src"), true).includes(-1));
+    }
+
+    @Test
+    public void filterTest() throws Exception {
+        String sample1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|src=10.0.0.1 act=notified";
+        String sample2 = "CEF:0|Fournisseur|Pare-feu|1.0|100|Détection|10|act=refusé spt=http";
+        String sample3 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|9|src=10.0.0.1 act=blocked";
+
+        CEFParser parser = new CEFParser();
+
+        CEFParser byVendor = parser.withFilter(EventFilter.headerEquals("deviceVendor", "FireEye"));
+        assertNotNull(byVendor.parse(sample1.getBytes(StandardCharsets.UTF_8)));
+        assertNull(byVendor.parse(sample2.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(byVendor.isRejected());
+        assertNull(byVendor.parse(sample1.substring(0, 20)));
+        assertFalse(byVendor.isRejected());
+
+        // Accepted messages go on to fail on their malformed spt
+        CEFParser byAction = parser.withFilter(EventFilter.extensionEquals("act", "refusé"));
+        assertNull(byAction.parse(sample1.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(byAction.isRejected());
+        assertNull(byAction.parse(sample2.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(byAction.isRejected());
+        assertNull(byAction.parse(sample2));
+        assertFalse(byAction.isRejected());
+
+        CEFParser combined = parser.withFilter(EventFilter.header("severity", severity -> Integer.parseInt(severity, 0, severity.length(), 10) < 5)
+                .and(EventFilter.extension("src", src -> src.toString().startsWith("10."))));
+        assertNotNull(combined.parse(sample1.getBytes(StandardCharsets.UTF_8)));
+        assertNull(combined.parse(sample3.getBytes(StandardCharsets.UTF_8)));
+        assertNull(combined.parse(sample2));
+        assertTrue(combined.isRejected());
+        assertFalse(combined.parseInto(sample3.getBytes(StandardCharsets.UTF_8), new CefRev23()));
+
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.headerEquals("vendor", "FireEye"));
+    }
+
+    @Test
+    public void parseHeaderTest() throws Exception {
+        String sample1 = "<134>Oct 17 10:00:00 fw01 CEF:0|Fournisseur|Pare\\|feu|1.0|100|Détection|10|spt=http msg=Accès refusé";
+        byte[] bytes = ("junk" + sample1).getBytes(StandardCharsets.UTF_8);
+
+        CEFParser parser = new CEFParser();
+
+        CEFHeader header = parser.parseHeader(bytes, 4, bytes.length - 4);
+        assertEquals(0, header.version());
+        assertEquals("Fournisseur", header.deviceVendor());
+        assertEquals("Pare\\|feu", header.deviceProduct());
+        assertEquals("Détection", header.name());
+        assertEquals("10", header.severity());
+        assertTrue(header.fieldEquals(CEFHeader.DEVICE_VENDOR, "Fournisseur"));
+        assertTrue(header.fieldEquals(CEFHeader.NAME, "Détection"));
+        assertFalse(header.fieldEquals(CEFHeader.SEVERITY, "1"));
+
+        ByteBuffer message = header.message();
+        assertEquals(bytes.length - 4, header.length());
+        message.position(header.extensionOffset());
+        assertEquals("spt=http msg=Accès refusé", StandardCharsets.UTF_8.decode(message).toString());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).position(4);
+        header = parser.parseHeader(direct);
+        assertEquals("100", header.deviceEventClassId());
+        assertEquals(4, direct.position());
+
+        assertNull(parser.parseHeader("CEF:0|Fournisseur|Pare-feu".getBytes(StandardCharsets.UTF_8)));
+        assertNull(parser.withFilter(EventFilter.headerEquals("severity", "1")).parseHeader(bytes, 4, bytes.length - 4));
+        assertEquals("CEFHeader{CEF:0||||||}", parser.parseHeader("CEF:0|||||||".getBytes(StandardCharsets.UTF_8)).toString());
+    }
+
+    @Test
+    public void parseResultTest() throws Exception {
+        CEFParser parser = new CEFParser();
+
+        ParseResult result = parser.tryParse("CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|src=10.0.0.1".getBytes(StandardCharsets.UTF_8));
+        assertTrue(result.isSuccess());
+        assertEquals("10.0.0.1", ((InetAddress) result.event().getExtension("src")).getHostAddress());
+        assertNull(result.errorCode());
+
+        // Offsets count bytes for byte input and chars for Strings
+        String badIp = "CEF:0|Fournisseur|Pare-feu|1.0|100|Détection|1|act=refusé src=10.0.0.256";
+        byte[] badIpBytes = badIp.getBytes(StandardCharsets.UTF_8);
+        result = parser.tryParse(badIpBytes, 0, badIpBytes.length, false, false, Locale.ENGLISH);
+        assertFalse(result.isSuccess());
+        assertNull(result.event());
+        assertEquals(ErrorCode.BAD_IP, result.errorCode());
+        assertEquals("src", result.field());
+        assertEquals(badIp.indexOf("10.0") + 2, result.offset());
+        assertEquals(badIp.indexOf("10.0"), parser.tryParse(badIp, false, false, Locale.ENGLISH).offset());
+        assertEquals(badIp.indexOf("10.0") + 2, parser.tryParse(ByteBuffer.wrap(badIpBytes), false, false, Locale.ENGLISH).offset());
+        assertEquals(badIp.indexOf("10.0") + 2, parser.withLazyDecoding(true).tryParse(badIpBytes, 0, badIpBytes.length, true, false, Locale.ENGLISH).offset());
+
+        String prefix = "CEF:0|security|threatmanager|1.0|100|detected|10|src=10.0.0.1 ";
+        assertEquals(ErrorCode.BAD_NUMBER, parser.tryParse(prefix + "spt=http", false, false, Locale.ENGLISH).errorCode());
+        assertEquals(ErrorCode.BAD_NUMBER, parser.tryParse(prefix + "in=2147483648", false, false, Locale.ENGLISH).errorCode());
+        assertTrue(parser.tryParse(prefix + "in=-2147483648", false, false, Locale.ENGLISH).isSuccess());
+        assertEquals(ErrorCode.BAD_NUMBER, parser.tryParse(prefix + "cnt=-", false, false, Locale.ENGLISH).errorCode());
+        assertEquals(ErrorCode.BAD_DATE, parser.tryParse(prefix + "rt=Wrong Date Format", false, false, Locale.ENGLISH).errorCode());
+        assertEquals(ErrorCode.BAD_MAC, parser.tryParse(prefix + "smac=00:11", false, false, Locale.ENGLISH).errorCode());
+        assertEquals(ErrorCode.EMPTY_VALUE, parser.tryParse(prefix + "spt=", false, false, Locale.ENGLISH).errorCode());
+        assertTrue(parser.tryParse(prefix + "spt=", false, true, Locale.ENGLISH).isSuccess());
+
+        result = parser.tryParse(prefix + "proto=xdp", true, false, Locale.ENGLISH);
+        assertEquals(ErrorCode.CONSTRAINT_VIOLATION, result.errorCode());
+        assertEquals("proto", result.field());
+        assertEquals(prefix.length() + "proto=".length(), result.offset());
+
+        result = parser.tryParse("CEF:0|FireEye|CMS", false, false, Locale.ENGLISH);
+        assertEquals(ErrorCode.BAD_HEADER, result.errorCode());
+        assertEquals(-1, result.offset());
+        result = parser.tryParse("<134>host CEF:X|FireEye|CMS|1|DM|domain-match|1|", false, false, Locale.ENGLISH);
+        assertEquals(ErrorCode.BAD_HEADER, result.errorCode());
+        assertEquals(10, result.offset());
+
+        result = parser.withFilter(EventFilter.headerEquals("deviceVendor", "FireEye")).tryParse(prefix, false, false, Locale.ENGLISH);
+        assertEquals(ErrorCode.REJECTED, result.errorCode());
+
+        // Conversion failures do not capture a stack trace
+        CEFHandlingException e = assertThrows(CEFHandlingException.class, () -> new CefRev23().setExtension("spt", "http", false));
+        assertEquals(ErrorCode.BAD_NUMBER, e.getErrorCode());
+        assertEquals("spt", e.getField());
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    public void metricsTest() throws Exception {
+        DefaultParserMetrics metrics = new DefaultParserMetrics(true, true);
+        CEFParser parser = new CEFParser().withMetrics(metrics);
+
+        String prefix = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|src=10.0.0.1 ";
+        assertNotNull(parser.parse(prefix + "act=blocked FireEyeAnomaly=beacon"));
+        assertNotNull(parser.parse((prefix + "FireEyeAnomaly=beacon FireEyeSname=x").getBytes(StandardCharsets.UTF_8), true));
+        assertNotNull(parser.withLazyDecoding(true).parse(prefix + "cs1=a"));
+        assertTrue(parser.parseInto((prefix + "cs1=a").getBytes(StandardCharsets.UTF_8), new CefRev23()));
+        assertNull(parser.parse(prefix + "spt=http"));
+        assertNull(parser.parse(prefix + "proto=xdp", true));
+        assertNull(parser.parse("CEF:0|Palo Alto Networks|PAN-OS"));
+        assertNull(parser.withFilter(EventFilter.headerEquals("deviceVendor", "Fortinet")).parse(prefix));
+
+        assertEquals(4, metrics.parsed());
+        assertEquals(1, metrics.rejected());
+        assertEquals(3, metrics.failures());
+        assertEquals(1, metrics.failures(ErrorCode.BAD_NUMBER));
+        assertEquals(1, metrics.failures(ErrorCode.CONSTRAINT_VIOLATION));
+        assertEquals(1, metrics.failures(ErrorCode.BAD_HEADER));
+        assertEquals(1, metrics.failuresByField().get("spt"));
+        assertEquals(1, metrics.failuresByField().get("proto"));
+        assertEquals(6, metrics.messagesByVendor().get("FireEye"));
+        assertEquals(1, metrics.messagesByVendor().size());
+        assertEquals(2, metrics.customExtensions().get("FireEyeAnomaly"));
+        assertEquals(1, metrics.customExtensions().get("FireEyeSname"));
+        assertEquals(2, metrics.customExtensions().size());
+
+        // Every message reached the tokenize stage, only validated events were validated
+        assertEquals(8, metrics.tokenizeTimes().count());
+        assertEquals(2, metrics.validateTimes().count());
+        assertTrue(metrics.nanosByVendor().get("FireEye") > 0);
+        assertTrue(metrics.tokenizeTimes().percentile(50) > 0);
+
+        metrics.reset();
+        assertEquals(0, metrics.parsed());
+        assertTrue(metrics.messagesByVendor().isEmpty());
+
+        // Untimed metrics leave the histograms empty
+        DefaultParserMetrics counts = new DefaultParserMetrics();
+        assertNotNull(new CEFParser().withMetrics(counts).parse(prefix + "FireEyeAnomaly=beacon"));
+        assertEquals(1, counts.parsed());
+        assertEquals(0, counts.tokenizeTimes().count());
+        assertTrue(counts.customExtensions().isEmpty());
     }
 
     @Test
@@ -317,6 +842,15 @@ public class CEFParserTest {
         CommonEvent event = parser.parse(sample1, true);
         assertNull(event);
 
+        String sample2 = "CEF:0|security|threatmanager|1.0|100|detected a \\\\ in packet|10|src=10.0.0.1 spt=http dst=1.1.1.1";
+        assertNull(parser.parse(sample2, false));
+
+        String sample3 = "CEF:0|security|threatmanager|1.0|100|detected a \\\\ in packet|10|src=2001:cdba::3257:9652 dst=1.1.1.1";
+        assertNull(parser.parse(sample3, false));
+
+        // Host names are never resolved
+        String sample4 = "CEF:0|security|threatmanager|1.0|100|detected a \\\\ in packet|10|src=10.0.0.1 dst=localhost";
+        assertNull(parser.parse(sample4, false));
     }
 
     @Test
@@ -331,6 +865,30 @@ public class CEFParserTest {
         assertEquals("", event.getHeader().get("deviceVendor"));
     }
 
+    @Test
+    public void incompleteHeaderTest() throws Exception {
+        CEFParser parser = new CEFParser();
+
+        assertNull(parser.parse("CEF:0|security|threatmanager|1.0|100|detected a \\| in packet|10"));
+        assertNull(parser.parse("CEF:X|security|threatmanager|1.0|100|detected a threat|10|src=10.0.0.1"));
+        assertNull(parser.parse(""));
+    }
+
+    @Test
+    public void extensionTokenizationTest() throws Exception {
+        String sample1 = "CEF:0|security|threatmanager|1.0|100|detected a threat|10|  cs1 =http://a/?b=c d\\=e cs2=key\\=value  cs1Label=Url cs2Label=";
+
+        CEFParser parser = new CEFParser();
+
+        CommonEvent event = parser.parse(sample1, false, true, Locale.ENGLISH);
+        assertNotNull(event);
+        Map<String, Object> extensions = event.getExtension(true);
+        assertEquals("http://a/?b=c d\\=e", extensions.get("cs1"));
+        assertEquals("key\\=value ", extensions.get("cs2"));
+        assertEquals("Url", extensions.get("cs1Label"));
+        assertEquals("", extensions.get("cs2Label"));
+    }
+
     @Test
     public void junkStringValidationTest() throws Exception {
         String sample1 = "test test test chocolate";
@@ -0,0 +1,205 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import com.fluenda.parcefone.event.CommonEvent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CEFReaderTest {
+
+    private static final String LINE1 = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3=53 dvc=10.100.25.16";
+    private static final String LINE2 = "CEF:0|Fournisseur|Pare-feu|1.0|100|Détection|10|msg=Accès refusé spt=443";
+    private static final String INVALID = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http";
+
+    // Returns at most a few bytes per read, so that lines span several reads
+    private static final class TrickleInputStream extends FilterInputStream {
+        private TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void readStreamTest() throws Exception {
+        final String text = LINE1 + "\n" + LINE2 + "\r\n\n" + INVALID + "\n" + LINE1;
+        final List<Long> failedOffsets = new ArrayList<>();
+
+        try (CEFReader reader = new CEFReader(new CEFParser(), new TrickleInputStream(input(text)))) {
+            reader.setFailureListener((offset, lineNumber, line) -> {
+                failedOffsets.add(offset);
+                assertEquals(4, lineNumber);
+                assertEquals(INVALID, StandardCharsets.UTF_8.decode(line).toString());
+            });
+
+            CommonEvent event = reader.read();
+            assertEquals(53L, event.getExtension("cn3"));
+            assertEquals(0, reader.offset());
+            assertEquals(1, reader.lineNumber());
+
+            event = reader.read();
+            assertEquals("Accès refusé", event.getExtension("msg"));
+            assertEquals(LINE1.length() + 1, reader.offset());
+            assertEquals(2, reader.lineNumber());
+
+            event = reader.read();
+            assertEquals(53L, event.getExtension("cn3"));
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length - LINE1.length(), reader.offset());
+            assertEquals(5, reader.lineNumber());
+
+            assertNull(reader.read());
+            assertNull(reader.read());
+            assertEquals(1, reader.failures());
+        }
+
+        final long invalidOffset = (LINE1 + "\n" + LINE2 + "\r\n\n").getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(List.of(invalidOffset), failedOffsets);
+    }
+
+    @Test
+    public void readFilteredTest() throws Exception {
+        final String text = LINE1 + "\n" + LINE2 + "\n" + INVALID + "\n" + LINE1;
+        final CEFParser parser = new CEFParser().withFilter(EventFilter.headerEquals("deviceVendor", "FireEye"));
+
+        try (CEFReader reader = new CEFReader(parser, input(text))) {
+            assertEquals(2, reader.stream().count());
+            assertEquals(1, reader.rejected());
+            assertEquals(1, reader.failures());
+        }
+    }
+
+    @Test
+    public void readChannelTest() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append(i % 2 == 0 ? LINE1 : LINE2).append('\n');
+        }
+
+        try (CEFReader reader = new CEFReader(new CEFParser(), Channels.newChannel(input(text.toString())))) {
+            final List<CommonEvent> events = reader.stream().collect(Collectors.toList());
+            assertEquals(5000, events.size());
+            assertEquals("Fournisseur", events.get(4999).getHeader().get("deviceVendor"));
+            assertEquals(5000, reader.lineNumber());
+        }
+    }
+
+    @Test
+    public void longLineTest() throws Exception {
+        final StringBuilder longValue = new StringBuilder();
+        while (longValue.length() < 200_000) {
+            longValue.append("0123456789");
+        }
+        final String text = LINE1 + "\n" + LINE1 + " cs1=" + longValue + "\n" + LINE2;
+
+        try (CEFReader reader = new CEFReader(new CEFParser(), input(text))) {
+            final List<CommonEvent> events = new ArrayList<>();
+            reader.iterator().forEachRemaining(events::add);
+            assertEquals(3, events.size());
+            assertEquals(longValue.toString(), events.get(1).getExtension("cs1"));
+            assertEquals("Fournisseur", events.get(2).getHeader().get("deviceVendor"));
+        }
+    }
+
+    @Test
+    public void maxLineLengthTest() throws Exception {
+        final String overlong = LINE1 + " msg=" + "x".repeat(500);
+        final String text = LINE1 + "\n" + overlong + "\r\n" + LINE2 + "\n" + overlong;
+        final List<Long> failedOffsets = new ArrayList<>();
+        final List<Long> failedLines = new ArrayList<>();
+
+        try (CEFReader reader = new CEFReader(new CEFParser(), new TrickleInputStream(input(text)))) {
+            reader.setMaxLineLength(LINE1.length() + 100);
+            reader.setFailureListener((offset, lineNumber, line) -> {
+                failedOffsets.add(offset);
+                failedLines.add(lineNumber);
+                assertEquals(LINE1.length() + 100, line.remaining());
+            });
+
+            assertEquals(53L, reader.read().getExtension("cn3"));
+            final CommonEvent event = reader.read();
+            assertEquals("Fournisseur", event.getHeader().get("deviceVendor"));
+            assertEquals(3, reader.lineNumber());
+            assertNull(reader.read());
+            assertEquals(2, reader.failures());
+        }
+
+        final long overlongBytes = overlong.getBytes(StandardCharsets.UTF_8).length;
+        final long line2Bytes = LINE2.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(List.of(LINE1.length() + 1L, LINE1.length() + 1L + overlongBytes + 2 + line2Bytes + 1), failedOffsets);
+        assertEquals(List.of(2L, 4L), failedLines);
+
+        assertThrows(IllegalArgumentException.class, () -> new CEFReader(new CEFParser(), input("")).setMaxLineLength(0));
+    }
+
+    @Test
+    public void endlessLineTest() throws Exception {
+        // 64 MB without a newline, then a valid line
+        final InputStream garbage = new InputStream() {
+            private long remaining = 64L * 1024 * 1024;
+
+            @Override
+            public int read() {
+                return remaining-- > 0 ? 'x' : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                final int count = (int) Math.min(len, remaining);
+                Arrays.fill(b, off, off + count, (byte) 'x');
+                remaining -= count;
+                return count;
+            }
+        };
+        final InputStream stream = new SequenceInputStream(garbage, input("\n" + LINE1 + "\n"));
+
+        try (CEFReader reader = new CEFReader(new CEFParser(), stream)) {
+            reader.setMaxLineLength(64 * 1024);
+            assertEquals(53L, reader.read().getExtension("cn3"));
+            assertEquals(2, reader.lineNumber());
+            assertEquals(1, reader.failures());
+            assertNull(reader.read());
+        }
+    }
+}
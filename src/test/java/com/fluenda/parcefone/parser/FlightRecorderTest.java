@@ -0,0 +1,112 @@
+/*
+ * (C) Copyright 2025 Fluenda.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.fluenda.parcefone.parser;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class FlightRecorderTest {
+
+    private static final String VALID = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|rt=Feb 09 2015 00:27:43 UTC cn3=53 dvc=10.100.25.16";
+    private static final String INVALID = "CEF:0|FireEye|CMS|7.2.1.244420|DM|domain-match|1|spt=http";
+
+    @Test
+    public void eventsTest() throws Exception {
+        assumeTrue(FlightRecorder.isAvailable(), "Flight Recorder is not available");
+
+        final CEFParser parser = new CEFParser();
+        final Path file = Files.createTempFile("parcefone", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.fluenda.parcefone.SlowParse").withThreshold(Duration.ZERO);
+            recording.enable("com.fluenda.parcefone.ConversionFailure");
+            recording.enable("com.fluenda.parcefone.ParseThroughput");
+            recording.start();
+
+            assertNotNull(parser.parse(VALID));
+            assertNull(parser.parse(INVALID));
+            parser.parseAll(Arrays.asList(bytes(VALID), bytes(INVALID), bytes(VALID)));
+            try (CEFReader reader = new CEFReader(parser, new ByteArrayInputStream(bytes(VALID + "\n" + INVALID + "\n")))) {
+                while (reader.read() != null) {
+                    // Drain the input
+                }
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        final List<RecordedEvent> events;
+        try {
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        final List<RecordedEvent> slowParses = named(events, "com.fluenda.parcefone.SlowParse");
+        assertEquals(7, slowParses.size());
+        final RecordedEvent failedParse = slowParses.stream()
+                .filter(e -> e.getString("errorCode") != null)
+                .findFirst().orElseThrow();
+        assertEquals("BAD_NUMBER", failedParse.getString("errorCode"));
+        assertEquals("spt", failedParse.getString("field"));
+        assertEquals("FireEye", failedParse.getString("deviceVendor"));
+        assertEquals(INVALID.length(), failedParse.getInt("length"));
+
+        final List<RecordedEvent> failures = named(events, "com.fluenda.parcefone.ConversionFailure");
+        assertEquals(3, failures.size());
+        assertEquals("spt", failures.get(0).getString("key"));
+        assertEquals("INTEGER", failures.get(0).getString("fieldType"));
+        assertEquals("BAD_NUMBER", failures.get(0).getString("errorCode"));
+
+        final List<RecordedEvent> samples = named(events, "com.fluenda.parcefone.ParseThroughput");
+        assertEquals(2, samples.size());
+        for (RecordedEvent sample : samples) {
+            final boolean batch = "parseAll".equals(sample.getString("source"));
+            assertEquals(batch ? 3 : 2, sample.getLong("messages"));
+            assertEquals(batch ? 2 : 1, sample.getLong("parsed"));
+            assertEquals(1, sample.getLong("failed"));
+            assertEquals(0, sample.getLong("rejected"));
+        }
+        assertEquals(1, samples.stream().filter(e -> "CEFReader".equals(e.getString("source"))).count());
+    }
+
+    private static byte[] bytes(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> name.equals(e.getEventType().getName())).collect(Collectors.toList());
+    }
+}